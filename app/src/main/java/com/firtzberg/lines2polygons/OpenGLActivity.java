@@ -20,6 +20,10 @@ public class OpenGLActivity extends Activity {
      * Hold a reference to our GLSurfaceView
      */
     private GLSurfaceView mGLSurfaceView;
+    /**
+     * Renderer of the grid or null if OpenGL ES 2.0 is not supported.
+     */
+    private GridRenderer mRenderer;
 
     @Override
     public void onCreate(Bundle savedInstanceState) {
@@ -42,7 +46,8 @@ public class OpenGLActivity extends Activity {
             Grid grid = this.getIntent().getParcelableExtra(PARCELABLE_GRID_KEY);
 
             // Set the renderer to our demo renderer, defined below.
-            mGLSurfaceView.setRenderer(new GridRenderer(this, grid));
+            mRenderer = new GridRenderer(this, grid);
+            mGLSurfaceView.setRenderer(mRenderer);
         } else {
             // This is where you could create an OpenGL ES 1.x compatible
             // renderer if you wanted to support both ES 1 and ES 2.
@@ -65,4 +70,11 @@ public class OpenGLActivity extends Activity {
         super.onPause();
         mGLSurfaceView.onPause();
     }
+
+    @Override
+    protected void onDestroy() {
+        super.onDestroy();
+        if (mRenderer != null)
+            mRenderer.release();
+    }
 }
\ No newline at end of file
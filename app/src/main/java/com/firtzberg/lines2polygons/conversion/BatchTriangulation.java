@@ -0,0 +1,174 @@
+package com.firtzberg.lines2polygons.conversion;
+
+import com.firtzberg.lines2polygons.elements.Border;
+import com.firtzberg.lines2polygons.elements.Polygon;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Triangles of a list of polygons computed in parallel.
+ * Indices of all polygons are stored in one contiguous array, each polygon starting at its own offset.
+ * Indices of a polygon count the points of its own border.
+ */
+public class BatchTriangulation {
+    /**
+     * Number of triangulated polygons.
+     */
+    private final int polygonCount;
+    /**
+     * Offset of the first index of each polygon, followed by the total number of indices.
+     */
+    private final int[] indexOffsets;
+    /**
+     * Number of triangles written for each polygon.
+     */
+    private final int[] triangleCounts;
+    /**
+     * Triples of triangle indices of all polygons in clockwise order.
+     */
+    private final int[] indices;
+
+    private BatchTriangulation(List<Polygon> polygons) {
+        polygonCount = polygons.size();
+        indexOffsets = new int[polygonCount + 1];
+        for (int i = 0; i < polygonCount; i++)
+            indexOffsets[i + 1] = indexOffsets[i] + Triangulator.getIndexCount(polygons.get(i).getBorder().getPointCount());
+        triangleCounts = new int[polygonCount];
+        indices = new int[indexOffsets[polygonCount]];
+    }
+
+    /**
+     * Triangulates the polygons on a thread pool with one thread per available processor.
+     * The pool is shut down before returning.
+     *
+     * @param polygons Polygons to be triangulated.
+     * @return Triangles of all polygons.
+     */
+    public static BatchTriangulation triangulate(List<Polygon> polygons) {
+        return triangulate(polygons, null);
+    }
+
+    /**
+     * Triangulates the polygons on a thread pool with one thread per available processor,
+     * reusing triangles of cached border shapes. The pool is shut down before returning.
+     *
+     * @param polygons Polygons to be triangulated.
+     * @param cache    Cache shared by all workers or null to triangulate every polygon.
+     * @return Triangles of all polygons.
+     */
+    public static BatchTriangulation triangulate(List<Polygon> polygons, TriangulationCache cache) {
+        int workerCount = Math.max(1, Math.min(polygons.size(), Runtime.getRuntime().availableProcessors()));
+        ExecutorService executor = Executors.newFixedThreadPool(workerCount);
+        try {
+            return triangulate(polygons, executor, workerCount, cache);
+        } finally {
+            executor.shutdown();
+        }
+    }
+
+    /**
+     * Triangulates the polygons on the given executor.
+     * Every worker takes the next untriangulated polygon until all are done, so a single huge polygon
+     * does not hold back the others. Each worker reuses its own triangulators.
+     *
+     * @param polygons    Polygons to be triangulated.
+     * @param executor    Executor running the workers.
+     * @param workerCount Number of workers submitted to the executor.
+     * @param cache       Cache shared by all workers or null to triangulate every polygon.
+     * @return Triangles of all polygons.
+     */
+    public static BatchTriangulation triangulate(List<Polygon> polygons, ExecutorService executor, int workerCount,
+                                                 final TriangulationCache cache) {
+        final BatchTriangulation batch = new BatchTriangulation(polygons);
+        final Polygon[] polygonArray = polygons.toArray(new Polygon[batch.polygonCount]);
+        final AtomicInteger nextPolygon = new AtomicInteger();
+        Callable<Void> worker = new Callable<Void>() {
+            @Override
+            public Void call() {
+                PolygonTriangulator triangulator = new Triangulator();
+                PolygonTriangulator monotoneTriangulator = new MonotoneTriangulator();
+                if (cache != null) {
+                    triangulator = new CachingTriangulator(triangulator, cache);
+                    monotoneTriangulator = new CachingTriangulator(monotoneTriangulator, cache);
+                }
+                for (int i = nextPolygon.getAndIncrement(); i < polygonArray.length; i = nextPolygon.getAndIncrement()) {
+                    Border border = polygonArray[i].getBorder();
+                    PolygonTriangulator polygonTriangulator =
+                            border.getPointCount() < MonotoneTriangulator.PREFERRED_MIN_VERTEX_COUNT
+                                    ? triangulator : monotoneTriangulator;
+                    batch.triangleCounts[i] = polygonTriangulator.computeTriangles(border.getCoordinates(), 0,
+                            border.getCoordinateCount(), batch.indices, batch.indexOffsets[i]);
+                }
+                return null;
+            }
+        };
+
+        List<Future<Void>> futures = new ArrayList<>(workerCount);
+        for (int i = 0; i < workerCount; i++)
+            futures.add(executor.submit(worker));
+        try {
+            // Completing a future makes the indices written by its worker visible to this thread.
+            for (Future<Void> future : futures)
+                future.get();
+        } catch (InterruptedException e) {
+            for (Future<Void> future : futures)
+                future.cancel(true);
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while triangulating polygons.", e);
+        } catch (ExecutionException e) {
+            Throwable cause = e.getCause();
+            if (cause instanceof RuntimeException)
+                throw (RuntimeException) cause;
+            if (cause instanceof Error)
+                throw (Error) cause;
+            throw new IllegalStateException(cause);
+        }
+        return batch;
+    }
+
+    /**
+     * Gets the number of triangulated polygons.
+     *
+     * @return Number of polygons.
+     */
+    public int getPolygonCount() {
+        return polygonCount;
+    }
+
+    /**
+     * Gets the indices of all polygons.
+     * <p>Do not edit the array.</p>
+     *
+     * @return Triples of triangle indices in clockwise order.
+     */
+    public int[] getIndices() {
+        return indices;
+    }
+
+    /**
+     * Gets the position of the first index of a polygon in {@link #getIndices()}.
+     *
+     * @param polygon Position of the polygon in the triangulated list.
+     * @return Offset of the first index.
+     */
+    public int getIndexOffset(int polygon) {
+        return indexOffsets[polygon];
+    }
+
+    /**
+     * Gets the number of triangles of a polygon.
+     *
+     * @param polygon Position of the polygon in the triangulated list.
+     * @return Number of triangles, 3 indices each.
+     */
+    public int getTriangleCount(int polygon) {
+        return triangleCounts[polygon];
+    }
+}
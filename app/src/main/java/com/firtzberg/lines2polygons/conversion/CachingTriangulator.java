@@ -0,0 +1,74 @@
+package com.firtzberg.lines2polygons.conversion;
+
+/**
+ * Looks up triangles of a border in a {@link TriangulationCache} and triangulates only borders of new shapes.
+ * Like other triangulators an instance must not be used by multiple threads at once, but the cache may be shared.
+ */
+public class CachingTriangulator implements PolygonTriangulator {
+    /**
+     * Triangulates borders missing from the cache.
+     */
+    private final PolygonTriangulator triangulator;
+    private final TriangulationCache cache;
+    /**
+     * Reused key for lookups.
+     */
+    private final TriangulationCache.Key probe = new TriangulationCache.Key();
+    /**
+     * Output of the triangulator on cache misses.
+     */
+    private int[] triangles;
+
+    /**
+     * Creates a triangulator in front of the given one.
+     *
+     * @param triangulator Triangulates borders which are not cached.
+     * @param cache        Cache of triangulated borders, may be shared with other instances.
+     */
+    public CachingTriangulator(PolygonTriangulator triangulator, TriangulationCache cache) {
+        this.triangulator = triangulator;
+        this.cache = cache;
+    }
+
+    @Override
+    public int computeTriangles(float[] vertices, int offset, int count, short[] output, int outputOffset) {
+        Triangulator.checkShortIndices(offset, count);
+        int[] triangles = lookUp(vertices, offset, count);
+        int vertexOffset = offset / 2;
+        for (int i = 0; i < triangles.length; i++)
+            output[outputOffset + i] = (short) (vertexOffset + triangles[i]);
+        return triangles.length / 3;
+    }
+
+    @Override
+    public int computeTriangles(float[] vertices, int offset, int count, int[] output, int outputOffset) {
+        int[] triangles = lookUp(vertices, offset, count);
+        int vertexOffset = offset / 2;
+        for (int i = 0; i < triangles.length; i++)
+            output[outputOffset + i] = vertexOffset + triangles[i];
+        return triangles.length / 3;
+    }
+
+    /**
+     * Gets the triangles of the border from the cache, triangulating and storing them if they are missing.
+     *
+     * @return Triangle indices relative to the first vertex of the border.
+     */
+    private int[] lookUp(float[] vertices, int offset, int count) {
+        probe.set(vertices, offset, count);
+        int[] cached = cache.get(probe);
+        if (cached != null)
+            return cached;
+
+        int indexCount = Triangulator.getIndexCount(count / 2);
+        if (triangles == null || triangles.length < indexCount)
+            triangles = new int[indexCount];
+        indexCount = 3 * triangulator.computeTriangles(vertices, offset, count, triangles, 0);
+        int vertexOffset = offset / 2;
+        int[] relative = new int[indexCount];
+        for (int i = 0; i < indexCount; i++)
+            relative[i] = triangles[i] - vertexOffset;
+        cache.put(probe.copy(), relative);
+        return relative;
+    }
+}
@@ -0,0 +1,141 @@
+package com.firtzberg.lines2polygons.conversion;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Thread safe histogram of non negative values with exponentially growing buckets.
+ * Bucket i holds values up to 2^i - 1, the last bucket holds all larger values.
+ */
+public class Histogram {
+    /**
+     * Number of buckets. Covers values up to 2^62 - 1 plus an overflow bucket.
+     */
+    public static final int BUCKET_COUNT = 64;
+    /**
+     * Number of recorded values in each bucket.
+     */
+    private final AtomicLongArray buckets = new AtomicLongArray(BUCKET_COUNT);
+    /**
+     * Number of recorded values.
+     */
+    private final AtomicLong count = new AtomicLong();
+    /**
+     * Sum of recorded values.
+     */
+    private final AtomicLong sum = new AtomicLong();
+    /**
+     * Largest recorded value.
+     */
+    private final AtomicLong max = new AtomicLong();
+
+    /**
+     * Gets the index of the bucket holding the value.
+     *
+     * @param value Non negative value.
+     * @return Index of the bucket.
+     */
+    static int bucketIndex(long value) {
+        if (value <= 0)
+            return 0;
+        return Math.min(BUCKET_COUNT - 1, 64 - Long.numberOfLeadingZeros(value));
+    }
+
+    /**
+     * Gets the largest value which falls into the bucket.
+     *
+     * @param index Index of the bucket.
+     * @return Inclusive upper bound of the bucket or {@link Long#MAX_VALUE} for the last bucket.
+     */
+    public static long getBucketUpperBound(int index) {
+        if (index >= BUCKET_COUNT - 1)
+            return Long.MAX_VALUE;
+        return (1L << index) - 1;
+    }
+
+    /**
+     * Records a value. Negative values are recorded as 0.
+     *
+     * @param value Value to be recorded.
+     */
+    public void record(long value) {
+        if (value < 0)
+            value = 0;
+        buckets.incrementAndGet(bucketIndex(value));
+        count.incrementAndGet();
+        sum.addAndGet(value);
+        long currentMax;
+        do {
+            currentMax = max.get();
+        } while (value > currentMax && !max.compareAndSet(currentMax, value));
+    }
+
+    /**
+     * Gets the number of recorded values.
+     *
+     * @return Number of recorded values.
+     */
+    public long getCount() {
+        return count.get();
+    }
+
+    /**
+     * Gets the sum of recorded values.
+     *
+     * @return Sum of recorded values.
+     */
+    public long getSum() {
+        return sum.get();
+    }
+
+    /**
+     * Gets the largest recorded value.
+     *
+     * @return Largest recorded value or 0 when nothing was recorded.
+     */
+    public long getMax() {
+        return max.get();
+    }
+
+    /**
+     * Gets the number of recorded values in the bucket.
+     *
+     * @param index Index of the bucket.
+     * @return Number of values in the bucket.
+     * @see #getBucketUpperBound(int)
+     */
+    public long getBucketCount(int index) {
+        return buckets.get(index);
+    }
+
+    /**
+     * Estimates the value below which the given fraction of recorded values falls.
+     *
+     * @param quantile Fraction from 0 to 1.
+     * @return Upper bound of the bucket containing the quantile or 0 when nothing was recorded.
+     */
+    public long getQuantileUpperBound(double quantile) {
+        long total = count.get();
+        if (total == 0)
+            return 0;
+        long rank = (long) Math.ceil(quantile * total);
+        long seen = 0;
+        for (int i = 0; i < BUCKET_COUNT; i++) {
+            seen += buckets.get(i);
+            if (seen >= rank)
+                return Math.min(getBucketUpperBound(i), max.get());
+        }
+        return max.get();
+    }
+
+    /**
+     * Clears all recorded values.
+     */
+    public void reset() {
+        for (int i = 0; i < BUCKET_COUNT; i++)
+            buckets.set(i, 0);
+        count.set(0);
+        sum.set(0);
+        max.set(0);
+    }
+}
@@ -0,0 +1,98 @@
+package com.firtzberg.lines2polygons.conversion;
+
+/**
+ * Polygonisation metrics recording every measurement into a histogram.
+ * Histograms can be exported to an external metrics system using {@link #export(Exporter)}.
+ */
+public class HistogramPolygonisationMetrics implements PolygonisationMetrics {
+    public static final String DECOMPOSITION_NANOS = "polygonisation.decomposition.nanos";
+    public static final String NODE_BUILDING_NANOS = "polygonisation.nodes.nanos";
+    public static final String FACE_TRACING_NANOS = "polygonisation.faces.nanos";
+    public static final String LINES = "polygonisation.lines";
+    public static final String FRAGMENTS = "polygonisation.fragments";
+    public static final String INTERSECTIONS = "polygonisation.intersections";
+    public static final String NODES = "polygonisation.nodes";
+    public static final String LINKS = "polygonisation.links";
+    public static final String POLYGONS = "polygonisation.polygons";
+    public static final String FAILED_SIDES = "polygonisation.failed_sides";
+
+    private final Histogram decompositionNanos = new Histogram();
+    private final Histogram nodeBuildingNanos = new Histogram();
+    private final Histogram faceTracingNanos = new Histogram();
+    private final Histogram lines = new Histogram();
+    private final Histogram fragments = new Histogram();
+    private final Histogram intersections = new Histogram();
+    private final Histogram nodes = new Histogram();
+    private final Histogram links = new Histogram();
+    private final Histogram polygons = new Histogram();
+    private final Histogram failedSides = new Histogram();
+
+    @Override
+    public void onDecomposition(long durationNanos, int lineCount, int fragmentCount, int intersectionCount) {
+        decompositionNanos.record(durationNanos);
+        lines.record(lineCount);
+        fragments.record(fragmentCount);
+        intersections.record(intersectionCount);
+    }
+
+    @Override
+    public void onNodeBuilding(long durationNanos, int nodeCount, int linkCount) {
+        nodeBuildingNanos.record(durationNanos);
+        nodes.record(nodeCount);
+        links.record(linkCount);
+    }
+
+    @Override
+    public void onFaceTracing(long durationNanos, int polygonCount, int failedSideCount) {
+        faceTracingNanos.record(durationNanos);
+        polygons.record(polygonCount);
+        failedSides.record(failedSideCount);
+    }
+
+    /**
+     * Passes every histogram with its name to the exporter.
+     *
+     * @param exporter Receiver of the histograms.
+     */
+    public void export(Exporter exporter) {
+        exporter.export(DECOMPOSITION_NANOS, decompositionNanos);
+        exporter.export(NODE_BUILDING_NANOS, nodeBuildingNanos);
+        exporter.export(FACE_TRACING_NANOS, faceTracingNanos);
+        exporter.export(LINES, lines);
+        exporter.export(FRAGMENTS, fragments);
+        exporter.export(INTERSECTIONS, intersections);
+        exporter.export(NODES, nodes);
+        exporter.export(LINKS, links);
+        exporter.export(POLYGONS, polygons);
+        exporter.export(FAILED_SIDES, failedSides);
+    }
+
+    /**
+     * Clears all histograms.
+     */
+    public void reset() {
+        decompositionNanos.reset();
+        nodeBuildingNanos.reset();
+        faceTracingNanos.reset();
+        lines.reset();
+        fragments.reset();
+        intersections.reset();
+        nodes.reset();
+        links.reset();
+        polygons.reset();
+        failedSides.reset();
+    }
+
+    /**
+     * Adapter to an external metrics system.
+     */
+    public interface Exporter {
+        /**
+         * Exports a single histogram.
+         *
+         * @param name      Name of the measured value.
+         * @param histogram Histogram of measured values.
+         */
+        void export(String name, Histogram histogram);
+    }
+}
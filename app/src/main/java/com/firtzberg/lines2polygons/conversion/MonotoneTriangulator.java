@@ -0,0 +1,711 @@
+package com.firtzberg.lines2polygons.conversion;
+
+/**
+ * Triangulates simple polygons in O(n log n) time.
+ * The polygon is split into y-monotone pieces with a plane sweep and each piece is triangulated in linear time.
+ * For more information see de Berg et al., "Computational Geometry: Algorithms and Applications", chapter 3.
+ * <p>Vertices with equal y coordinates are ordered by their x coordinate, which is equivalent to shearing the plane
+ * by an infinitesimal amount and removes horizontal edges from the sweep.
+ * Degenerate polygons which do not split cleanly, such as polygons touching themselves,
+ * are triangulated by the ear clipping {@link Triangulator} instead.</p>
+ */
+public class MonotoneTriangulator implements PolygonTriangulator {
+    private static final byte START = 0;
+    private static final byte END = 1;
+    private static final byte SPLIT = 2;
+    private static final byte MERGE = 3;
+    private static final byte REGULAR = 4;
+    /**
+     * Polygons with at least this many vertices are triangulated faster by this triangulator than by ear clipping,
+     * smaller ones should use {@link Triangulator}.
+     */
+    public static final int PREFERRED_MIN_VERTEX_COUNT = 512;
+
+    /**
+     * Used for polygons which could not be split into monotone pieces.
+     */
+    private final Triangulator fallback = new Triangulator();
+    /**
+     * Coordinates of the vertices by position. Positions follow counterclockwise order.
+     */
+    private float[] xs, ys;
+    private int vertexCount;
+    /**
+     * Index of the first vertex and whether positions run opposite to the input order.
+     */
+    private int vertexIndexOffset;
+    private boolean reversed;
+    private byte[] vertexTypes;
+    /**
+     * Last vertex above the sweep line connected to each edge in the status, -1 when unset.
+     */
+    private int[] helpers;
+    /**
+     * Positions sorted from top to bottom and a buffer used while sorting.
+     */
+    private int[] sweepOrder, sortBuffer;
+    private int[] diagonalFrom, diagonalTo;
+    private int diagonalCount;
+    /**
+     * Edges intersecting the sweep line with the polygon interior to their right, ordered from left to right.
+     * They form an AVL tree whose nodes are the edges, identified by the position of their upper vertex,
+     * so the children and height of edge e are stored at index e and the sweep allocates nothing.
+     */
+    private int[] statusLeft, statusRight, statusHeight;
+    private int statusRoot;
+
+    /**
+     * Half edges of the polygon and diagonals. Polygon edge i leads from position i to i + 1,
+     * every diagonal adds a half edge in each direction.
+     */
+    private int[] edgeFrom, edgeTo;
+    private double[] edgeAngles;
+    private boolean[] edgeVisited;
+    /**
+     * Half edges leaving each position, ordered clockwise, stored from outgoingStart[v] to outgoingStart[v + 1].
+     */
+    private int[] outgoingStart, outgoing;
+
+    /**
+     * Positions of the current monotone piece in counterclockwise order.
+     */
+    private int[] piece;
+    /**
+     * Piece vertices from top to bottom with the chain each belongs to, and the stack of the piece triangulation.
+     */
+    private int[] chainOrder, stack;
+    private boolean[] onLeftChain;
+
+    /**
+     * Triangles in positions and number of used indices.
+     */
+    private int[] triangles;
+    private int triangleIndexCount;
+    /**
+     * Set when the polygon could not be split into monotone pieces.
+     */
+    private boolean failed;
+
+    /**
+     * Calculates the orientation of three points.
+     *
+     * @return Positive if the points turn left, negative if they turn right and 0 if they are collinear.
+     */
+    private static double cross(float ax, float ay, float bx, float by, float cx, float cy) {
+        return ((double) bx - ax) * ((double) cy - ay) - ((double) cx - ax) * ((double) by - ay);
+    }
+
+    @Override
+    public int computeTriangles(float[] vertices, int offset, int count, short[] output, int outputOffset) {
+        Triangulator.checkShortIndices(offset, count);
+        if (!triangulate(vertices, offset, count))
+            return fallback.computeTriangles(vertices, offset, count, output, outputOffset);
+        int[] triangles = this.triangles;
+        for (int i = 0; i < triangleIndexCount; i++)
+            output[outputOffset + i] = (short) indexOf(triangles[i]);
+        return triangleIndexCount / 3;
+    }
+
+    @Override
+    public int computeTriangles(float[] vertices, int offset, int count, int[] output, int outputOffset) {
+        if (!triangulate(vertices, offset, count))
+            return fallback.computeTriangles(vertices, offset, count, output, outputOffset);
+        int[] triangles = this.triangles;
+        for (int i = 0; i < triangleIndexCount; i++)
+            output[outputOffset + i] = indexOf(triangles[i]);
+        return triangleIndexCount / 3;
+    }
+
+    /**
+     * Converts a position to the index of the vertex in the input array.
+     *
+     * @param position Position in counterclockwise order.
+     * @return Index of the vertex counted from the start of the input array.
+     */
+    private int indexOf(int position) {
+        return vertexIndexOffset + (reversed ? vertexCount - 1 - position : position);
+    }
+
+    /**
+     * Triangulates the polygon into {@link #triangles} without falling back to ear clipping.
+     * Package private so tests can tell monotone splitting from the fallback.
+     *
+     * @return True on success, false if the polygon is degenerate and has to be triangulated otherwise.
+     */
+    boolean triangulate(float[] vertices, int offset, int count) {
+        int vertexCount = this.vertexCount = count / 2;
+        vertexIndexOffset = offset / 2;
+        failed = false;
+        triangleIndexCount = 0;
+        if (vertexCount < 3)
+            return true;
+        ensureCapacity(vertexCount);
+
+        // Copy coordinates in counterclockwise order.
+        double doubleArea = 0;
+        for (int i = 0, j = vertexCount - 1; i < vertexCount; j = i++) {
+            doubleArea += (double) vertices[offset + 2 * j] * vertices[offset + 2 * i + 1]
+                    - (double) vertices[offset + 2 * i] * vertices[offset + 2 * j + 1];
+        }
+        reversed = doubleArea < 0;
+        float[] xs = this.xs;
+        float[] ys = this.ys;
+        for (int position = 0; position < vertexCount; position++) {
+            int v = offset + 2 * (reversed ? vertexCount - 1 - position : position);
+            xs[position] = vertices[v];
+            ys[position] = vertices[v + 1];
+        }
+
+        splitIntoMonotonePieces();
+        if (!failed)
+            buildHalfEdges();
+        if (!failed)
+            triangulatePieces();
+        if (failed || triangleIndexCount != Triangulator.getIndexCount(vertexCount))
+            return false;
+        return coversArea(Math.abs(doubleArea));
+    }
+
+    private void ensureCapacity(int vertexCount) {
+        if (xs != null && xs.length >= vertexCount)
+            return;
+        xs = new float[vertexCount];
+        ys = new float[vertexCount];
+        vertexTypes = new byte[vertexCount];
+        helpers = new int[vertexCount];
+        sweepOrder = new int[vertexCount];
+        // Also used for sorting half edges, of which there are at most vertexCount + 2 * diagonals.
+        sortBuffer = new int[3 * vertexCount];
+        diagonalFrom = new int[vertexCount];
+        diagonalTo = new int[vertexCount];
+        statusLeft = new int[vertexCount];
+        statusRight = new int[vertexCount];
+        statusHeight = new int[vertexCount];
+        edgeFrom = new int[3 * vertexCount];
+        edgeTo = new int[3 * vertexCount];
+        edgeAngles = new double[3 * vertexCount];
+        edgeVisited = new boolean[3 * vertexCount];
+        outgoingStart = new int[vertexCount + 1];
+        outgoing = new int[3 * vertexCount];
+        piece = new int[vertexCount];
+        chainOrder = new int[vertexCount];
+        stack = new int[vertexCount];
+        onLeftChain = new boolean[vertexCount];
+        triangles = new int[Triangulator.getIndexCount(vertexCount)];
+    }
+
+    /**
+     * Checks whether the point at position a is above the point at position b.
+     * Points at equal height are ordered from left to right, equal points by position.
+     */
+    private boolean isAbove(int a, int b) {
+        float ay = ys[a], by = ys[b];
+        if (ay != by)
+            return ay > by;
+        float ax = xs[a], bx = xs[b];
+        if (ax != bx)
+            return ax < bx;
+        return a < b;
+    }
+
+    private double cross(int a, int b, int c) {
+        return cross(xs[a], ys[a], xs[b], ys[b], xs[c], ys[c]);
+    }
+
+    /**
+     * Sweeps from top to bottom adding diagonals which split the polygon into y-monotone pieces.
+     */
+    private void splitIntoMonotonePieces() {
+        int vertexCount = this.vertexCount;
+        byte[] vertexTypes = this.vertexTypes;
+        int[] helpers = this.helpers;
+        int[] sweepOrder = this.sweepOrder;
+        for (int v = 0; v < vertexCount; v++) {
+            int previous = v == 0 ? vertexCount - 1 : v - 1;
+            int next = v == vertexCount - 1 ? 0 : v + 1;
+            boolean previousBelow = isAbove(v, previous);
+            boolean nextBelow = isAbove(v, next);
+            boolean convex = cross(previous, v, next) > 0;
+            if (previousBelow && nextBelow)
+                vertexTypes[v] = convex ? START : SPLIT;
+            else if (!previousBelow && !nextBelow)
+                vertexTypes[v] = convex ? END : MERGE;
+            else
+                vertexTypes[v] = REGULAR;
+            helpers[v] = -1;
+            sweepOrder[v] = v;
+        }
+        sort(sweepOrder, 0, vertexCount, false);
+
+        diagonalCount = 0;
+        statusRoot = -1;
+        for (int k = 0; k < vertexCount && !failed; k++) {
+            int v = sweepOrder[k];
+            // Edge ending at v.
+            int previous = v == 0 ? vertexCount - 1 : v - 1;
+            int left;
+            switch (vertexTypes[v]) {
+                case START:
+                    statusRoot = insert(statusRoot, v);
+                    helpers[v] = v;
+                    break;
+                case END:
+                    connectToMergeHelper(v, previous);
+                    statusRoot = remove(statusRoot, previous);
+                    break;
+                case SPLIT:
+                    left = leftEdge(v);
+                    if (left >= 0) {
+                        addDiagonal(v, helpers[left]);
+                        helpers[left] = v;
+                    }
+                    statusRoot = insert(statusRoot, v);
+                    helpers[v] = v;
+                    break;
+                case MERGE:
+                    connectToMergeHelper(v, previous);
+                    statusRoot = remove(statusRoot, previous);
+                    left = leftEdge(v);
+                    if (left >= 0) {
+                        connectToMergeHelper(v, left);
+                        helpers[left] = v;
+                    }
+                    break;
+                default:
+                    if (isAbove(previous, v)) {
+                        // Going down, the interior is to the right of v.
+                        connectToMergeHelper(v, previous);
+                        statusRoot = remove(statusRoot, previous);
+                        statusRoot = insert(statusRoot, v);
+                        helpers[v] = v;
+                    } else {
+                        left = leftEdge(v);
+                        if (left >= 0) {
+                            connectToMergeHelper(v, left);
+                            helpers[left] = v;
+                        }
+                    }
+                    break;
+            }
+        }
+    }
+
+    /**
+     * Finds the edge in the status directly left of the vertex.
+     *
+     * @param v Position of the vertex on the sweep line.
+     * @return Upper position of the edge or -1 if no edge is left of the vertex.
+     */
+    private int leftEdge(int v) {
+        int edge = -1;
+        for (int node = statusRoot; node >= 0; ) {
+            if (compareToPoint(node, v) <= 0) {
+                edge = node;
+                node = statusRight[node];
+            } else
+                node = statusLeft[node];
+        }
+        // Only possible for degenerate polygons.
+        if (edge < 0)
+            failed = true;
+        return edge;
+    }
+
+    /**
+     * Inserts an edge into the status subtree.
+     *
+     * @param node Root of the subtree or -1 if it is empty.
+     * @param edge Upper position of the inserted edge.
+     * @return New root of the subtree.
+     */
+    private int insert(int node, int edge) {
+        if (node < 0) {
+            statusLeft[edge] = -1;
+            statusRight[edge] = -1;
+            statusHeight[edge] = 1;
+            return edge;
+        }
+        int order = compareEdges(edge, node);
+        if (order < 0)
+            statusLeft[node] = insert(statusLeft[node], edge);
+        else if (order > 0)
+            statusRight[node] = insert(statusRight[node], edge);
+        else
+            return node;
+        return balance(node);
+    }
+
+    /**
+     * Removes an edge from the status subtree. Nothing is removed if the edge is not found.
+     *
+     * @param node Root of the subtree or -1 if it is empty.
+     * @param edge Upper position of the removed edge.
+     * @return New root of the subtree.
+     */
+    private int remove(int node, int edge) {
+        if (node < 0)
+            return -1;
+        int order = compareEdges(edge, node);
+        if (order < 0)
+            statusLeft[node] = remove(statusLeft[node], edge);
+        else if (order > 0)
+            statusRight[node] = remove(statusRight[node], edge);
+        else {
+            int left = statusLeft[node], right = statusRight[node];
+            if (left < 0)
+                return right;
+            if (right < 0)
+                return left;
+            // The leftmost edge of the right subtree takes the place of the removed edge.
+            node = right;
+            while (statusLeft[node] >= 0)
+                node = statusLeft[node];
+            statusRight[node] = removeLeftmost(right);
+            statusLeft[node] = left;
+        }
+        return balance(node);
+    }
+
+    private int removeLeftmost(int node) {
+        if (statusLeft[node] < 0)
+            return statusRight[node];
+        statusLeft[node] = removeLeftmost(statusLeft[node]);
+        return balance(node);
+    }
+
+    private int height(int node) {
+        return node < 0 ? 0 : statusHeight[node];
+    }
+
+    /**
+     * Restores the height of a node whose subtrees differ in height by at most 2.
+     *
+     * @return New root of the subtree.
+     */
+    private int balance(int node) {
+        int left = statusLeft[node], right = statusRight[node];
+        int difference = height(left) - height(right);
+        if (difference > 1) {
+            if (height(statusLeft[left]) < height(statusRight[left]))
+                statusLeft[node] = rotateLeft(left);
+            return rotateRight(node);
+        }
+        if (difference < -1) {
+            if (height(statusRight[right]) < height(statusLeft[right]))
+                statusRight[node] = rotateRight(right);
+            return rotateLeft(node);
+        }
+        updateHeight(node);
+        return node;
+    }
+
+    private int rotateLeft(int node) {
+        int right = statusRight[node];
+        statusRight[node] = statusLeft[right];
+        statusLeft[right] = node;
+        updateHeight(node);
+        updateHeight(right);
+        return right;
+    }
+
+    private int rotateRight(int node) {
+        int left = statusLeft[node];
+        statusLeft[node] = statusRight[left];
+        statusRight[left] = node;
+        updateHeight(node);
+        updateHeight(left);
+        return left;
+    }
+
+    private void updateHeight(int node) {
+        statusHeight[node] = 1 + Math.max(height(statusLeft[node]), height(statusRight[node]));
+    }
+
+    /**
+     * Orders edges in the status from left to right.
+     * Edges in the status do not intersect and all cross the sweep line, so their order does not change.
+     *
+     * @param a Upper position of the first edge.
+     * @param b Upper position of the second edge.
+     * @return Negative if the first edge is left of the second, positive if right and 0 for the same edge.
+     */
+    private int compareEdges(int a, int b) {
+        if (a == b)
+            return 0;
+        // Compare at the upper vertex of the edge starting lower.
+        int result;
+        if (isAbove(a, b)) {
+            result = compareToPoint(a, b);
+            if (result == 0)
+                result = compareToPoint(a, b == vertexCount - 1 ? 0 : b + 1);
+        } else {
+            result = -compareToPoint(b, a);
+            if (result == 0)
+                result = -compareToPoint(b, a == vertexCount - 1 ? 0 : a + 1);
+        }
+        return result != 0 ? result : a < b ? -1 : 1;
+    }
+
+    /**
+     * Compares an edge to a point between its ends.
+     *
+     * @param edge Upper position of the edge. Edges in the status lead downward.
+     * @param v    Position of the point.
+     * @return Negative if the edge is left of the point, positive if right and 0 if the point is on the edge.
+     */
+    private int compareToPoint(int edge, int v) {
+        int lower = edge == vertexCount - 1 ? 0 : edge + 1;
+        double side = cross(lower, edge, v);
+        return side < 0 ? -1 : side > 0 ? 1 : 0;
+    }
+
+    /**
+     * Adds a diagonal from v to the helper of the edge if the helper is a merge vertex.
+     */
+    private void connectToMergeHelper(int v, int edge) {
+        int helper = helpers[edge];
+        if (helper >= 0 && vertexTypes[helper] == MERGE)
+            addDiagonal(v, helper);
+    }
+
+    private void addDiagonal(int from, int to) {
+        if (from < 0 || to < 0 || from == to || diagonalCount == diagonalFrom.length) {
+            failed = true;
+            return;
+        }
+        diagonalFrom[diagonalCount] = from;
+        diagonalTo[diagonalCount] = to;
+        diagonalCount++;
+    }
+
+    /**
+     * Connects polygon edges and both directions of every diagonal into half edges
+     * and orders the half edges leaving each vertex clockwise.
+     */
+    private void buildHalfEdges() {
+        int vertexCount = this.vertexCount;
+        int edgeCount = vertexCount + 2 * diagonalCount;
+        int[] edgeFrom = this.edgeFrom;
+        int[] edgeTo = this.edgeTo;
+        for (int v = 0; v < vertexCount; v++) {
+            edgeFrom[v] = v;
+            edgeTo[v] = v == vertexCount - 1 ? 0 : v + 1;
+        }
+        for (int d = 0; d < diagonalCount; d++) {
+            int edge = vertexCount + 2 * d;
+            edgeFrom[edge] = diagonalFrom[d];
+            edgeTo[edge] = diagonalTo[d];
+            edgeFrom[edge + 1] = diagonalTo[d];
+            edgeTo[edge + 1] = diagonalFrom[d];
+        }
+
+        int[] outgoingStart = this.outgoingStart;
+        for (int v = 0; v <= vertexCount; v++)
+            outgoingStart[v] = 0;
+        for (int edge = 0; edge < edgeCount; edge++) {
+            outgoingStart[edgeFrom[edge] + 1]++;
+            edgeAngles[edge] = Math.atan2((double) ys[edgeTo[edge]] - ys[edgeFrom[edge]],
+                    (double) xs[edgeTo[edge]] - xs[edgeFrom[edge]]);
+            edgeVisited[edge] = false;
+        }
+        for (int v = 0; v < vertexCount; v++)
+            outgoingStart[v + 1] += outgoingStart[v];
+        // Fill using sortBuffer as insertion cursor per vertex.
+        int[] cursor = sortBuffer;
+        System.arraycopy(outgoingStart, 0, cursor, 0, vertexCount);
+        for (int edge = 0; edge < edgeCount; edge++)
+            outgoing[cursor[edgeFrom[edge]]++] = edge;
+        for (int v = 0; v < vertexCount; v++) {
+            if (outgoingStart[v + 1] - outgoingStart[v] > 1)
+                sort(outgoing, outgoingStart[v], outgoingStart[v + 1], true);
+        }
+    }
+
+    /**
+     * Gets the half edge following the given one along the boundary of the piece to its left.
+     * That is the first half edge leaving its end clockwise from the direction back to its start.
+     */
+    private int nextEdge(int edge) {
+        int v = edgeTo[edge];
+        double backAngle = Math.atan2((double) ys[edgeFrom[edge]] - ys[v], (double) xs[edgeFrom[edge]] - xs[v]);
+        int from = outgoingStart[v];
+        int to = outgoingStart[v + 1];
+        // Binary search for the first outgoing half edge with a smaller angle.
+        int low = from, high = to;
+        while (low < high) {
+            int middle = (low + high) >>> 1;
+            if (edgeAngles[outgoing[middle]] < backAngle)
+                high = middle;
+            else
+                low = middle + 1;
+        }
+        return outgoing[low == to ? from : low];
+    }
+
+    /**
+     * Walks the boundary of every monotone piece and triangulates it.
+     */
+    private void triangulatePieces() {
+        int edgeCount = vertexCount + 2 * diagonalCount;
+        boolean[] edgeVisited = this.edgeVisited;
+        int[] piece = this.piece;
+        for (int first = 0; first < edgeCount && !failed; first++) {
+            if (edgeVisited[first])
+                continue;
+            int size = 0;
+            int edge = first;
+            do {
+                if (edgeVisited[edge] || size == piece.length) {
+                    failed = true;
+                    return;
+                }
+                edgeVisited[edge] = true;
+                piece[size++] = edgeFrom[edge];
+                edge = nextEdge(edge);
+            } while (edge != first);
+            triangulateMonotonePiece(size);
+        }
+    }
+
+    /**
+     * Triangulates the y-monotone piece stored in {@link #piece} in linear time.
+     *
+     * @param size Number of vertices of the piece.
+     */
+    private void triangulateMonotonePiece(int size) {
+        int[] piece = this.piece;
+        if (size < 3) {
+            failed = true;
+            return;
+        }
+        if (size == 3) {
+            addTriangle(piece[0], piece[1], piece[2]);
+            return;
+        }
+        int top = 0, bottom = 0;
+        for (int i = 1; i < size; i++) {
+            if (isAbove(piece[i], piece[top]))
+                top = i;
+            if (isAbove(piece[bottom], piece[i]))
+                bottom = i;
+        }
+
+        // Merge the left chain, running forward from the top, with the right chain, running backward.
+        int[] chainOrder = this.chainOrder;
+        boolean[] onLeftChain = this.onLeftChain;
+        chainOrder[0] = piece[top];
+        onLeftChain[0] = true;
+        int left = top == size - 1 ? 0 : top + 1;
+        int right = top == 0 ? size - 1 : top - 1;
+        for (int k = 1; k < size - 1; k++) {
+            boolean takeLeft = right == bottom || (left != bottom && isAbove(piece[left], piece[right]));
+            if (takeLeft) {
+                chainOrder[k] = piece[left];
+                onLeftChain[k] = true;
+                left = left == size - 1 ? 0 : left + 1;
+            } else {
+                chainOrder[k] = piece[right];
+                onLeftChain[k] = false;
+                right = right == 0 ? size - 1 : right - 1;
+            }
+        }
+        chainOrder[size - 1] = piece[bottom];
+
+        // Stack of indices into chainOrder.
+        int[] stack = this.stack;
+        int stackSize = 0;
+        stack[stackSize++] = 0;
+        stack[stackSize++] = 1;
+        for (int k = 2; k < size - 1; k++) {
+            int u = chainOrder[k];
+            if (onLeftChain[k] != onLeftChain[stack[stackSize - 1]]) {
+                // Connect u to every vertex on the stack.
+                while (stackSize > 1) {
+                    int popped = stack[--stackSize];
+                    addTriangle(u, chainOrder[popped], chainOrder[stack[stackSize - 1]]);
+                }
+                stackSize = 0;
+                stack[stackSize++] = k - 1;
+                stack[stackSize++] = k;
+            } else {
+                int popped = stack[--stackSize];
+                while (stackSize > 0) {
+                    int candidate = stack[stackSize - 1];
+                    double turn = cross(chainOrder[candidate], u, chainOrder[popped]);
+                    // The diagonal is inside when the popped vertex bulges outward.
+                    if (onLeftChain[k] ? turn >= 0 : turn <= 0)
+                        break;
+                    addTriangle(u, chainOrder[popped], chainOrder[candidate]);
+                    popped = stack[--stackSize];
+                }
+                stack[stackSize++] = popped;
+                stack[stackSize++] = k;
+            }
+        }
+        int u = chainOrder[size - 1];
+        while (stackSize > 1) {
+            int popped = stack[--stackSize];
+            addTriangle(u, chainOrder[popped], chainOrder[stack[stackSize - 1]]);
+        }
+    }
+
+    /**
+     * Adds a triangle in clockwise order.
+     */
+    private void addTriangle(int a, int b, int c) {
+        if (triangleIndexCount + 3 > triangles.length) {
+            failed = true;
+            return;
+        }
+        if (cross(a, b, c) > 0) {
+            int swap = b;
+            b = c;
+            c = swap;
+        }
+        triangles[triangleIndexCount++] = a;
+        triangles[triangleIndexCount++] = b;
+        triangles[triangleIndexCount++] = c;
+    }
+
+    /**
+     * Checks that the triangles cover exactly the polygon area, which fails for overlapping triangles.
+     *
+     * @param polygonDoubleArea Twice the area of the polygon.
+     */
+    private boolean coversArea(double polygonDoubleArea) {
+        double sum = 0;
+        int[] triangles = this.triangles;
+        for (int i = 0; i < triangleIndexCount; i += 3)
+            sum += Math.abs(cross(triangles[i], triangles[i + 1], triangles[i + 2]));
+        return Math.abs(sum - polygonDoubleArea) <= 1e-6 * polygonDoubleArea;
+    }
+
+    /**
+     * Sorts a range of positions from top to bottom or a range of half edges by descending angle.
+     * Merge sort, since it needs no recursion stack and only the preallocated buffer.
+     */
+    private void sort(int[] items, int from, int to, boolean byAngle) {
+        int[] buffer = sortBuffer;
+        int length = to - from;
+        for (int width = 1; width < length; width *= 2) {
+            for (int low = from; low < to - width; low += 2 * width) {
+                int middle = low + width;
+                int high = Math.min(low + 2 * width, to);
+                int i = low, j = middle, k = 0;
+                while (i < middle && j < high)
+                    buffer[k++] = precedes(items[j], items[i], byAngle) ? items[j++] : items[i++];
+                while (i < middle)
+                    buffer[k++] = items[i++];
+                while (j < high)
+                    buffer[k++] = items[j++];
+                System.arraycopy(buffer, 0, items, low, k);
+            }
+        }
+    }
+
+    private boolean precedes(int a, int b, boolean byAngle) {
+        if (byAngle)
+            return edgeAngles[a] > edgeAngles[b];
+        return isAbove(a, b);
+    }
+}
@@ -0,0 +1,30 @@
+package com.firtzberg.lines2polygons.conversion;
+
+/**
+ * Algorithm splitting a simple polygon into triangles.
+ * Implementations reuse their internal arrays, so a single instance must not be used by multiple threads at once.
+ */
+public interface PolygonTriangulator {
+
+    /**
+     * Triangulates the given simple polygon writing triangle indices to the array.
+     *
+     * @param vertices     Pairs describing vertices of the polygon, in either clockwise or counterclockwise order.
+     * @param offset       Index of the x coordinate of the first vertex.
+     * @param count        Number of coordinates, two per vertex.
+     * @param output       Receives triples of vertex indices in clockwise order. Indices count vertices from the start
+     *                     of the vertices array. Must have room for {@link Triangulator#getIndexCount(int)} indices.
+     * @param outputOffset Index at which the first index is written.
+     * @return Number of written triangles.
+     * @throws IllegalArgumentException If vertex indices exceed {@link Triangulator#MAX_SHORT_INDEX}.
+     */
+    int computeTriangles(float[] vertices, int offset, int count, short[] output, int outputOffset);
+
+    /**
+     * Triangulates the given simple polygon writing triangle indices to the array.
+     * Unlike short output it supports polygons of any size.
+     *
+     * @see #computeTriangles(float[], int, int, short[], int)
+     */
+    int computeTriangles(float[] vertices, int offset, int count, int[] output, int outputOffset);
+}
@@ -1,12 +1,12 @@
 package com.firtzberg.lines2polygons.conversion;
 
-import android.util.Log;
-
 import com.firtzberg.lines2polygons.elements.Grid;
 import com.firtzberg.lines2polygons.elements.Line;
 import com.firtzberg.lines2polygons.elements.Point;
 import com.firtzberg.lines2polygons.elements.Polygon;
 import com.firtzberg.lines2polygons.elements.Vector;
+import com.firtzberg.lines2polygons.profiling.GeometryTrace;
+import com.firtzberg.lines2polygons.profiling.Tracing;
 
 import java.util.ArrayList;
 import java.util.HashSet;
@@ -26,16 +26,62 @@ public class Polygonisation {
      * @return Areas enclosed by the lines and frame of the grid including a polygon around the grid.
      */
     public static List<Polygon> gridToPolygons(Grid grid) {
-        return nodesToPolygons(linesToNodes(decomposeGrid(grid)));
+        return gridToPolygons(grid, PolygonisationMetrics.NONE);
+    }
+
+    /**
+     * Converts a grid into a set of polygons reporting the duration and size of each phase.
+     *
+     * @param grid    The grid to be decomposed.
+     * @param metrics Receiver of phase measurements. Durations are not measured for {@link PolygonisationMetrics#NONE}.
+     * @return Areas enclosed by the lines and frame of the grid including a polygon around the grid.
+     */
+    public static List<Polygon> gridToPolygons(Grid grid, PolygonisationMetrics metrics) {
+        final boolean timed = metrics != PolygonisationMetrics.NONE;
+        final PhaseStatistics statistics = new PhaseStatistics();
+        long start = timed ? System.nanoTime() : 0;
+        List<Line> fragments;
+        GeometryTrace.begin(GeometryTrace.Section.DECOMPOSITION, grid.getLineCount());
+        try {
+            fragments = decomposeGrid(grid, statistics);
+        } finally {
+            GeometryTrace.end();
+        }
+        long end = timed ? System.nanoTime() : 0;
+        metrics.onDecomposition(end - start, statistics.lineCount, fragments.size(), statistics.intersectionCount);
+
+        start = end;
+        Set<Node> nodes;
+        GeometryTrace.begin(GeometryTrace.Section.NODE_BUILDING, fragments.size());
+        try {
+            nodes = linesToNodes(fragments, statistics);
+        } finally {
+            GeometryTrace.end();
+        }
+        end = timed ? System.nanoTime() : 0;
+        metrics.onNodeBuilding(end - start, nodes.size(), statistics.linkCount);
+
+        start = end;
+        List<Polygon> polygons;
+        GeometryTrace.begin(GeometryTrace.Section.FACE_TRACING, nodes.size());
+        try {
+            polygons = nodesToPolygons(nodes, statistics);
+        } finally {
+            GeometryTrace.end();
+        }
+        end = timed ? System.nanoTime() : 0;
+        metrics.onFaceTracing(end - start, polygons.size(), statistics.failedSideCount);
+        return polygons;
     }
 
     /**
      * Converts a grid into a set of non intersecting lines by splitting all lines at intersection points.
      *
-     * @param grid Frame and set f ines to be decomposed.
+     * @param grid       Frame and set f ines to be decomposed.
+     * @param statistics Receives the number of input lines and found intersections.
      * @return Set of non intersecting lines.
      */
-    private static Iterable<Line> decomposeGrid(Grid grid) {
+    private static List<Line> decomposeGrid(Grid grid, PhaseStatistics statistics) {
         // Set of non intersecting lines so far extracted from the grid
         final List<Line> fragments = new ArrayList<>();
         // Frame edges
@@ -55,7 +101,10 @@ public class Polygonisation {
         Line existingFragment;
         Line fragmentCandidate;
         Point intersection;
+        int lineCount = 0;
+        int intersectionCount = 0;
         for (Line line : grid.getLines()) {
+            lineCount++;
             // Start with single fragment candidate.
             fragmentCandidates.clear();
             fragmentCandidates.add(line);
@@ -73,6 +122,7 @@ public class Polygonisation {
                     // Check for intersection, edges inclusive to detect T junctions.
                     intersection = fragments.get(existingFragmentIndex).intersection(fragmentCandidates.get(candidateIndex), true);
                     if (intersection != null) {
+                        intersectionCount++;
                         //Split existing fragment if its edge is not part of a T or V junction.
                         existingFragment = fragments.get(existingFragmentIndex);
                         if (!(intersection.equals(existingFragment.start) || intersection.equals(existingFragment.end))) {
@@ -93,16 +143,19 @@ public class Polygonisation {
                 fragments.add(fragment);
             }
         }
+        statistics.lineCount = lineCount;
+        statistics.intersectionCount = intersectionCount;
         return fragments;
     }
 
     /**
      * Converts a set of undirected lines to a set of nodes.
      *
-     * @param lines Undirected lines.
+     * @param lines      Undirected lines.
+     * @param statistics Receives the number of created links.
      * @return Set of nodes each containing every line that starts or ends in it with start point inside the node.
      */
-    private static Set<Node> linesToNodes(Iterable<Line> lines) {
+    private static Set<Node> linesToNodes(Iterable<Line> lines, PhaseStatistics statistics) {
         Set<Node> nodes = new HashSet<>();
         Node startNode;
         Node endNode;
@@ -133,6 +186,8 @@ public class Polygonisation {
             }
             // Connect nodes.
             startNode.link(endNode, line);
+            // Each line is split into two line sides.
+            statistics.linkCount += 2;
         }
 //        for (Node node :
 //                nodes) {
@@ -144,10 +199,11 @@ public class Polygonisation {
     /**
      * Convert properly generated nodes to a set of polygons.
      *
-     * @param nodes Nodes containing line sides from which polygons are constructed.
+     * @param nodes      Nodes containing line sides from which polygons are constructed.
+     * @param statistics Receives the number of failed attempts to add a line side to a polygon.
      * @return Set of constructed polygons.
      */
-    private static List<Polygon> nodesToPolygons(Set<Node> nodes) {
+    private static List<Polygon> nodesToPolygons(Set<Node> nodes, PhaseStatistics statistics) {
         List<Polygon> polygons = new ArrayList<>();
         Node node;
         Node.Link link;
@@ -166,8 +222,11 @@ public class Polygonisation {
                 node = link.destination;
                 link = node.walkLeft(link.path.line.vector);
                 success = polygon.addSide(link.path);
-                if (!success)
-                    Log.d("polygonisation", "add side failed");
+                if (!success) {
+                    statistics.failedSideCount++;
+                    if (Tracing.ENABLED && Tracing.isActive())
+                        Tracing.trace("Polygonisation", "Add side failed", link.path.line, null, null);
+                }
                 // remove cleared nodes
                 if (node.isCleared())
                     nodes.remove(node);
@@ -177,6 +236,28 @@ public class Polygonisation {
         return polygons;
     }
 
+    /**
+     * Sizes gathered during the phases of a single polygonisation.
+     */
+    private static class PhaseStatistics {
+        /**
+         * Number of lines in the grid excluding the frame.
+         */
+        int lineCount;
+        /**
+         * Number of intersections found between fragments and fragment candidates.
+         */
+        int intersectionCount;
+        /**
+         * Number of line sides connecting nodes.
+         */
+        int linkCount;
+        /**
+         * Number of line sides which could not be added to the polygon being traced.
+         */
+        int failedSideCount;
+    }
+
     /**
      * Set of line sides leaving a junction point.
      */
@@ -0,0 +1,53 @@
+package com.firtzberg.lines2polygons.conversion;
+
+/**
+ * Receives measurements of the phases of {@link Polygonisation#gridToPolygons(com.firtzberg.lines2polygons.elements.Grid, PolygonisationMetrics)}.
+ * Each method is called once per polygonisation, on the thread doing the polygonisation.
+ */
+public interface PolygonisationMetrics {
+
+    /**
+     * Metrics ignoring all measurements. Phases are not timed when this instance is used.
+     */
+    PolygonisationMetrics NONE = new PolygonisationMetrics() {
+        @Override
+        public void onDecomposition(long durationNanos, int lineCount, int fragmentCount, int intersectionCount) {
+        }
+
+        @Override
+        public void onNodeBuilding(long durationNanos, int nodeCount, int linkCount) {
+        }
+
+        @Override
+        public void onFaceTracing(long durationNanos, int polygonCount, int failedSideCount) {
+        }
+    };
+
+    /**
+     * Called after lines were split at intersection points.
+     *
+     * @param durationNanos     Duration of the phase in nanoseconds.
+     * @param lineCount         Number of lines in the grid excluding the frame.
+     * @param fragmentCount     Number of non intersecting fragments including the frame.
+     * @param intersectionCount Number of found intersections.
+     */
+    void onDecomposition(long durationNanos, int lineCount, int fragmentCount, int intersectionCount);
+
+    /**
+     * Called after fragments were connected into nodes.
+     *
+     * @param durationNanos Duration of the phase in nanoseconds.
+     * @param nodeCount     Number of junction points.
+     * @param linkCount     Number of line sides connecting the nodes.
+     */
+    void onNodeBuilding(long durationNanos, int nodeCount, int linkCount);
+
+    /**
+     * Called after all polygons were traced.
+     *
+     * @param durationNanos   Duration of the phase in nanoseconds.
+     * @param polygonCount    Number of constructed polygons.
+     * @param failedSideCount Number of line sides which could not be added to a polygon.
+     */
+    void onFaceTracing(long durationNanos, int polygonCount, int failedSideCount);
+}
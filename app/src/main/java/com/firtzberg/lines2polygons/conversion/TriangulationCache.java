@@ -0,0 +1,231 @@
+package com.firtzberg.lines2polygons.conversion;
+
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Triangles of previously triangulated borders keyed by the border shape.
+ * Borders are compared relative to their first point, so shapes which differ only by translation share an entry.
+ * For lattice borders the relative coordinates are exact and the cached triangles are valid for every translation.
+ * <p>The size of an entry is its weight, the number of border coordinates and triangle indices it holds.
+ * Least recently used entries are evicted while the total weight exceeds the maximum,
+ * and borders heavier than a fraction of the maximum are not cached, so one huge border does not flush the cache.
+ * The cache is safe to be shared by multiple {@link CachingTriangulator} instances on different threads.</p>
+ */
+public class TriangulationCache {
+    /**
+     * Entries heavier than the maximum weight divided by this are not stored.
+     */
+    private static final int MAX_ENTRY_WEIGHT_DIVISOR = 8;
+    /**
+     * Maximum total number of cached coordinates and indices.
+     */
+    private final long maxWeight;
+    /**
+     * Triangle indices relative to the first point of the border, in access order.
+     */
+    private final LinkedHashMap<Key, int[]> entries = new LinkedHashMap<>(16, 0.75f, true);
+    private long weight;
+    private long hitCount;
+    private long missCount;
+    private long evictionCount;
+
+    /**
+     * Creates an empty cache.
+     *
+     * @param maxWeight Maximum total number of cached border coordinates and triangle indices.
+     */
+    public TriangulationCache(long maxWeight) {
+        if (maxWeight <= 0)
+            throw new IllegalArgumentException("Maximum weight must be positive.");
+        this.maxWeight = maxWeight;
+    }
+
+    /**
+     * Gets the weight of an entry.
+     *
+     * @return Number of coordinates and indices held by the entry.
+     */
+    private static long weightOf(Key key, int[] triangles) {
+        return (long) key.coordinateCount + triangles.length;
+    }
+
+    /**
+     * Looks up the triangles of a border and counts the hit or miss.
+     *
+     * @param key Shape of the border.
+     * @return Triangle indices relative to the first point or null if the border is not cached.
+     */
+    synchronized int[] get(Key key) {
+        int[] triangles = entries.get(key);
+        if (triangles == null)
+            missCount++;
+        else
+            hitCount++;
+        return triangles;
+    }
+
+    /**
+     * Stores the triangles of a border unless it is too heavy,
+     * evicting least recently used entries until the weight bound holds.
+     *
+     * @param key       Shape of the border, must not be modified afterwards.
+     * @param triangles Triangle indices relative to the first point, must not be modified afterwards.
+     */
+    synchronized void put(Key key, int[] triangles) {
+        long entryWeight = weightOf(key, triangles);
+        if (entryWeight > maxWeight / MAX_ENTRY_WEIGHT_DIVISOR)
+            return;
+        int[] previous = entries.put(key, triangles);
+        weight += entryWeight;
+        if (previous != null)
+            weight -= weightOf(key, previous);
+        Iterator<Map.Entry<Key, int[]>> eldest = entries.entrySet().iterator();
+        while (weight > maxWeight) {
+            Map.Entry<Key, int[]> entry = eldest.next();
+            weight -= weightOf(entry.getKey(), entry.getValue());
+            eldest.remove();
+            evictionCount++;
+        }
+    }
+
+    /**
+     * Gets the maximum total weight of the entries.
+     *
+     * @return Maximum number of cached coordinates and indices.
+     */
+    public long getMaxWeight() {
+        return maxWeight;
+    }
+
+    /**
+     * Gets the total weight of the entries.
+     *
+     * @return Number of cached coordinates and indices.
+     */
+    public synchronized long getWeight() {
+        return weight;
+    }
+
+    /**
+     * Gets the number of cached borders.
+     *
+     * @return Entry count.
+     */
+    public synchronized int size() {
+        return entries.size();
+    }
+
+    /**
+     * Gets the number of lookups which found the triangles of the border.
+     *
+     * @return Hit count.
+     */
+    public synchronized long getHitCount() {
+        return hitCount;
+    }
+
+    /**
+     * Gets the number of lookups which had to triangulate the border.
+     *
+     * @return Miss count.
+     */
+    public synchronized long getMissCount() {
+        return missCount;
+    }
+
+    /**
+     * Gets the number of entries removed to keep the weight bound.
+     *
+     * @return Eviction count.
+     */
+    public synchronized long getEvictionCount() {
+        return evictionCount;
+    }
+
+    /**
+     * Gets the share of lookups which found the triangles of the border.
+     *
+     * @return Hit rate from 0 to 1, 0 if there were no lookups.
+     */
+    public synchronized double getHitRate() {
+        long lookupCount = hitCount + missCount;
+        return lookupCount == 0 ? 0 : (double) hitCount / lookupCount;
+    }
+
+    /**
+     * Removes all entries and resets the statistics.
+     */
+    public synchronized void clear() {
+        entries.clear();
+        weight = 0;
+        hitCount = 0;
+        missCount = 0;
+        evictionCount = 0;
+    }
+
+    /**
+     * Border coordinates relative to the first point.
+     * A single key is reused for lookups and copied only when a new entry is stored.
+     */
+    static final class Key {
+        private float[] coordinates;
+        private int coordinateCount;
+        private int hash;
+
+        /**
+         * Sets the key to the shape of a border.
+         *
+         * @param vertices Pairs describing vertices of the border.
+         * @param offset   Index of the x coordinate of the first vertex.
+         * @param count    Number of coordinates, two per vertex.
+         */
+        void set(float[] vertices, int offset, int count) {
+            if (coordinates == null || coordinates.length < count)
+                coordinates = new float[count];
+            float[] coordinates = this.coordinates;
+            float originX = count > 0 ? vertices[offset] : 0;
+            float originY = count > 1 ? vertices[offset + 1] : 0;
+            int hash = count;
+            for (int i = 0; i < count; i++) {
+                float coordinate = vertices[offset + i] - (i % 2 == 0 ? originX : originY);
+                coordinates[i] = coordinate;
+                hash = 31 * hash + Float.floatToIntBits(coordinate);
+            }
+            coordinateCount = count;
+            this.hash = hash;
+        }
+
+        /**
+         * Creates a key of the same shape which does not share the coordinate array.
+         *
+         * @return Copy of the key.
+         */
+        Key copy() {
+            Key copy = new Key();
+            copy.coordinates = Arrays.copyOf(coordinates, coordinateCount);
+            copy.coordinateCount = coordinateCount;
+            copy.hash = hash;
+            return copy;
+        }
+
+        @Override
+        public int hashCode() {
+            return hash;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) return true;
+            if (!(o instanceof Key)) return false;
+            Key key = (Key) o;
+            if (hash != key.hash || coordinateCount != key.coordinateCount) return false;
+            for (int i = 0; i < coordinateCount; i++)
+                if (Float.floatToIntBits(coordinates[i]) != Float.floatToIntBits(key.coordinates[i]))
+                    return false;
+            return true;
+        }
+    }
+}
@@ -17,6 +17,8 @@ package com.firtzberg.lines2polygons.conversion;
  ******************************************************************************/
 
 
+import java.nio.IntBuffer;
+import java.nio.ShortBuffer;
 import java.util.ArrayList;
 import java.util.List;
 
@@ -36,15 +38,32 @@ import java.util.List;
  * @author Thomas ten Cate (bugfixes, optimizations)
  * @author Nathan Sweet (rewrite, return indices, no allocation, optimizations)
  * @author Hrvoje Jukic (adapted for usage without dependencies) */
-public class Triangulator {
+public class Triangulator implements PolygonTriangulator {
     static private final int CONCAVE = -1;
     static private final int CONVEX = 1;
-    private final ArrayList<Short> triangles = new ArrayList<>();
-    private short[] indicesArray;
-    private short[] indices;
+    /** Polygons with fewer vertices are checked against every remaining reflex vertex without the grid. */
+    static private final int GRID_MIN_VERTEX_COUNT = 64;
+    /** Highest vertex index which can be written to short output. */
+    static public final int MAX_SHORT_INDEX = Short.MAX_VALUE;
+    private final ArrayList<Short> triangleList = new ArrayList<>();
+    private int[] triangles;
+    private int triangleIndexCount;
+    private int[] indices;
     private float[] vertices;
     private int vertexCount;
     private int[] vertexTypes;
+    /** Ring of the remaining vertices. Positions of the previous and next remaining vertex for every position. */
+    private int[] previous, next;
+    /** True when reflex and tangential vertices are indexed in the uniform grid. */
+    private boolean useGrid;
+    /** Number of grid cells along the x and y axis. */
+    private int gridColumns, gridRows;
+    /** Bounds of the polygon and reciprocal cell dimensions used to map coordinates to cells. */
+    private float gridMinX, gridMinY, gridScaleX, gridScaleY;
+    /** Position of the first vertex in each cell or -1 when the cell is empty. */
+    private int[] cellFirst;
+    /** Doubly linked lists of vertices in the same cell and the cell of each vertex, -1 when it is not indexed. */
+    private int[] cellPrevious, cellNext, vertexCell;
 
     static private boolean areVerticesClockwise(float[] vertices, int offset, int count) {
         if (count <= 2) return false;
@@ -70,30 +89,128 @@ public class Triangulator {
         return (int) Math.signum(area);
     }
 
+    /** Gets the number of indices written by the triangulation of a polygon.
+     * @param vertexCount number of polygon vertices.
+     * @return 3 indices for each of the n-2 triangles. */
+    static public int getIndexCount(int vertexCount) {
+        return Math.max(0, vertexCount - 2) * 3;
+    }
+
+    /** Checks that all indices of the polygon fit into short output.
+     * @throws IllegalArgumentException if the last vertex index is larger than {@link #MAX_SHORT_INDEX}. */
+    static void checkShortIndices(int offset, int count) {
+        if (offset / 2 + count / 2 - 1 > MAX_SHORT_INDEX)
+            throw new IllegalArgumentException("Vertex indices up to " + (offset / 2 + count / 2 - 1)
+                    + " do not fit into short output, use int output instead.");
+    }
+
     /** @see #computeTriangles(float[], int, int) */
     public List<Short> computeTriangles(float[] vertices) {
         return computeTriangles(vertices, 0, vertices.length);
     }
 
     /** Triangulates the given (convex or concave) simple polygon to a list of triangle vertices.
+     * Boxes every index, prefer {@link #computeTriangles(float[], int, int, short[], int)}.
      * @param vertices pairs describing vertices of the polygon, in either clockwise or counterclockwise order.
      * @return triples of triangle indices in clockwise order. Note the returned array is reused for later calls to the same
-     *         method. */
+     *         method.
+     * @throws IllegalArgumentException if vertex indices exceed {@link #MAX_SHORT_INDEX}. */
     public ArrayList<Short> computeTriangles(float[] vertices, int offset, int count) {
+        checkShortIndices(offset, count);
+        int indexCount = triangulate(vertices, offset, count);
+        ArrayList<Short> triangleList = this.triangleList;
+        triangleList.clear();
+        triangleList.ensureCapacity(indexCount);
+        int[] triangles = this.triangles;
+        for (int i = 0; i < indexCount; i++)
+            triangleList.add((short) triangles[i]);
+        return triangleList;
+    }
+
+    /** Triangulates the given simple polygon writing triangle indices to the array.
+     * @param vertices pairs describing vertices of the polygon, in either clockwise or counterclockwise order.
+     * @param output receives triples of triangle indices in clockwise order. Must have room for
+     *           {@link #getIndexCount(int)} indices.
+     * @return number of written triangles.
+     * @throws IllegalArgumentException if vertex indices exceed {@link #MAX_SHORT_INDEX}. */
+    @Override
+    public int computeTriangles(float[] vertices, int offset, int count, short[] output, int outputOffset) {
+        checkShortIndices(offset, count);
+        int indexCount = triangulate(vertices, offset, count);
+        int[] triangles = this.triangles;
+        for (int i = 0; i < indexCount; i++)
+            output[outputOffset + i] = (short) triangles[i];
+        return indexCount / 3;
+    }
+
+    /** Triangulates the given simple polygon writing triangle indices to the array. Supports polygons of any size.
+     * @see #computeTriangles(float[], int, int, short[], int) */
+    @Override
+    public int computeTriangles(float[] vertices, int offset, int count, int[] output, int outputOffset) {
+        int indexCount = triangulate(vertices, offset, count);
+        System.arraycopy(triangles, 0, output, outputOffset, indexCount);
+        return indexCount / 3;
+    }
+
+    /** Triangulates the given simple polygon putting triangle indices to the buffer at its current position.
+     * @see #computeTriangles(float[], int, int, short[], int) */
+    public int computeTriangles(float[] vertices, int offset, int count, ShortBuffer output) {
+        checkShortIndices(offset, count);
+        int indexCount = triangulate(vertices, offset, count);
+        int[] triangles = this.triangles;
+        for (int i = 0; i < indexCount; i++)
+            output.put((short) triangles[i]);
+        return indexCount / 3;
+    }
+
+    /** Triangulates the given simple polygon putting triangle indices to the buffer at its current position.
+     * @see #computeTriangles(float[], int, int, int[], int) */
+    public int computeTriangles(float[] vertices, int offset, int count, IntBuffer output) {
+        int indexCount = triangulate(vertices, offset, count);
+        output.put(triangles, 0, indexCount);
+        return indexCount / 3;
+    }
+
+    /** Triangulates the polygon into the reused {@link #triangles} array.
+     * @return number of written indices. */
+    private int triangulate(float[] vertices, int offset, int count) {
         this.vertices = vertices;
         int vertexCount = this.vertexCount = count / 2;
         int vertexOffset = offset / 2;
 
-        if (indicesArray == null || indicesArray.length < vertexCount)
-            indicesArray = new short[vertexCount];
-        short[] indicesArray = this.indicesArray;
-        short[] indices = this.indices = indicesArray;
+        // A polygon with n vertices has a triangulation of n-2 triangles.
+        int indexCount = getIndexCount(vertexCount);
+        if (triangles == null || triangles.length < indexCount)
+            triangles = new int[indexCount];
+        triangleIndexCount = 0;
+
+        if (vertexCount >= 3) {
+            int winding = vertexCount == 4 ? computeParallelogramWinding(vertices, offset) : 0;
+            if (winding == 0) winding = computeConvexWinding(vertices, offset, vertexCount);
+            if (winding != 0) {
+                triangulateConvex(vertexOffset, vertexCount, winding);
+                return triangleIndexCount;
+            }
+        }
+
+        if (indices == null || indices.length < vertexCount) {
+            indices = new int[vertexCount];
+            previous = new int[vertexCount];
+            next = new int[vertexCount];
+        }
+        int[] indices = this.indices;
         if (areVerticesClockwise(vertices, offset, count)) {
-            for (short i = 0; i < vertexCount; i++)
-                indices[i] = (short) (vertexOffset + i);
+            for (int i = 0; i < vertexCount; i++)
+                indices[i] = vertexOffset + i;
         } else {
             for (int i = 0, n = vertexCount - 1; i < vertexCount; i++)
-                indices[i] = (short) (vertexOffset + n - i); // Reversed.
+                indices[i] = vertexOffset + n - i; // Reversed.
+        }
+        int[] previous = this.previous;
+        int[] next = this.next;
+        for (int i = 0; i < vertexCount; i++) {
+            previous[i] = i == 0 ? vertexCount - 1 : i - 1;
+            next[i] = i == vertexCount - 1 ? 0 : i + 1;
         }
 
         if (this.vertexTypes == null || this.vertexTypes.length < vertexCount) {
@@ -103,52 +220,122 @@ public class Triangulator {
         for (int i = 0; i < vertexCount; ++i)
             vertexTypes[i] = (classifyVertex(i));
 
-        // A polygon with n vertices has a triangulation of n-2 triangles.
-        ArrayList<Short> triangles = this.triangles;
-        triangles.clear();
-        triangles.ensureCapacity(Math.max(0, vertexCount - 2) * 3);
+        useGrid = vertexCount >= GRID_MIN_VERTEX_COUNT;
+        if (useGrid) buildGrid(offset, count);
+
         triangulate();
-        return triangles;
+        return triangleIndexCount;
+    }
+
+    /** Checks whether the four vertices form a parallelogram, which includes every rectangle, by comparing the midpoints of
+     * the diagonals. Needs a single area sign instead of classifying each vertex.
+     * @return {@link #CONVEX} if the parallelogram is clockwise, {@link #CONCAVE} if it is counterclockwise or 0 if the
+     *         vertices are no parallelogram or it is degenerate. */
+    static private int computeParallelogramWinding(float[] vertices, int offset) {
+        float p1x = vertices[offset], p1y = vertices[offset + 1];
+        float p2x = vertices[offset + 2], p2y = vertices[offset + 3];
+        float p3x = vertices[offset + 4], p3y = vertices[offset + 5];
+        if (p1x + p3x != p2x + vertices[offset + 6] || p1y + p3y != p2y + vertices[offset + 7]) return 0;
+        return computeSpannedAreaSign(p1x, p1y, p2x, p2y, p3x, p3y);
+    }
+
+    /** Checks in one pass whether the polygon is strictly convex. All consecutive edges must turn to the same side and the
+     * edges may change their horizontal direction only twice, which rules out self intersecting polygons like pentagrams.
+     * @return {@link #CONVEX} if the polygon is convex and clockwise, {@link #CONCAVE} if it is convex and counterclockwise
+     *         or 0 if it is not strictly convex. */
+    static private int computeConvexWinding(float[] vertices, int offset, int vertexCount) {
+        int end = offset + vertexCount * 2;
+        float p1x = vertices[end - 4], p1y = vertices[end - 3];
+        float p2x = vertices[end - 2], p2y = vertices[end - 1];
+        float direction = Math.signum(p2x - p1x);
+        int winding = 0, directionChanges = 0;
+        for (int i = offset; i < end; i += 2) {
+            float p3x = vertices[i], p3y = vertices[i + 1];
+            int sign = computeSpannedAreaSign(p1x, p1y, p2x, p2y, p3x, p3y);
+            if (sign == 0 || sign == -winding) return 0;
+            winding = sign;
+            float edgeDirection = Math.signum(p3x - p2x);
+            if (edgeDirection != 0) {
+                if (edgeDirection == -direction && ++directionChanges > 2) return 0;
+                direction = edgeDirection;
+            }
+            p1x = p2x;
+            p1y = p2y;
+            p2x = p3x;
+            p2y = p3y;
+        }
+        return winding;
+    }
+
+    /** Emits a triangle fan around the first vertex of a strictly convex polygon. */
+    private void triangulateConvex(int vertexOffset, int vertexCount, int winding) {
+        int[] triangles = this.triangles;
+        int triangleIndexCount = 0;
+        for (int i = 1, n = vertexCount - 1; i < n; i++) {
+            triangles[triangleIndexCount++] = vertexOffset;
+            if (winding == CONVEX) {
+                triangles[triangleIndexCount++] = vertexOffset + i;
+                triangles[triangleIndexCount++] = vertexOffset + i + 1;
+            } else {
+                triangles[triangleIndexCount++] = vertexOffset + i + 1;
+                triangles[triangleIndexCount++] = vertexOffset + i;
+            }
+        }
+        this.triangleIndexCount = triangleIndexCount;
     }
 
     private void triangulate() {
         int[] vertexTypes = this.vertexTypes;
+        // Position of any remaining vertex. Ear search starts here.
+        int start = 0;
 
         while (vertexCount > 3) {
-            int earTipIndex = findEarTip();
+            int earTipIndex = findEarTip(start);
+            int previousIndex = previous[earTipIndex];
+            int nextIndex = next[earTipIndex];
             cutEarTip(earTipIndex);
 
             // The type of the two vertices adjacent to the clipped vertex may have changed.
-            int previousIndex = previousIndex(earTipIndex);
-            int nextIndex = earTipIndex == vertexCount ? 0 : earTipIndex;
             vertexTypes[previousIndex] = classifyVertex(previousIndex);
             vertexTypes[nextIndex] = classifyVertex(nextIndex);
+            if (useGrid) {
+                updateGrid(previousIndex);
+                updateGrid(nextIndex);
+            }
+            // Vertices before the clipped one were no ear tips and stay so, continue with its neighbours.
+            start = previousIndex;
         }
 
         if (vertexCount == 3) {
-            List<Short> triangles = this.triangles;
-            short[] indices = this.indices;
-            triangles.add(indices[0]);
-            triangles.add(indices[1]);
-            triangles.add(indices[2]);
+            int[] triangles = this.triangles;
+            int[] indices = this.indices;
+            int[] next = this.next;
+            triangles[triangleIndexCount++] = indices[start];
+            triangles[triangleIndexCount++] = indices[next[start]];
+            triangles[triangleIndexCount++] = indices[next[next[start]]];
         }
     }
 
     /** @return {@link #CONCAVE} or {@link #CONVEX} */
     private int classifyVertex(int index) {
-        short[] indices = this.indices;
-        int previous = indices[previousIndex(index)] * 2;
+        int[] indices = this.indices;
+        int previous = indices[this.previous[index]] * 2;
         int current = indices[index] * 2;
-        int next = indices[nextIndex(index)] * 2;
+        int next = indices[this.next[index]] * 2;
         float[] vertices = this.vertices;
         return computeSpannedAreaSign(vertices[previous], vertices[previous + 1], vertices[current], vertices[current + 1],
                 vertices[next], vertices[next + 1]);
     }
 
-    private int findEarTip() {
-        int vertexCount = this.vertexCount;
-        for (int i = 0; i < vertexCount; i++)
+    /** @param start position of the remaining vertex checked first.
+     * @return position of the vertex to be clipped. */
+    private int findEarTip(int start) {
+        int[] next = this.next;
+        int i = start;
+        do {
             if (isEarTip(i)) return i;
+            i = next[i];
+        } while (i != start);
 
         // Desperate mode: if no vertex is an ear tip, we are dealing with a degenerate polygon (e.g. nearly collinear).
         // Note that the input was not necessarily degenerate, but we could have made it so by clipping some valid ears.
@@ -158,18 +345,21 @@ public class Triangulator {
 
         // Return a convex or tangential vertex if one exists.
         int[] vertexTypes = this.vertexTypes;
-        for (int i = 0; i < vertexCount; i++)
+        do {
             if (vertexTypes[i] != CONCAVE) return i;
-        return 0; // If all vertices are concave, just return the first one.
+            i = next[i];
+        } while (i != start);
+        return start; // If all vertices are concave, just return the first one.
     }
 
     private boolean isEarTip(int earTipIndex) {
         int[] vertexTypes = this.vertexTypes;
         if (vertexTypes[earTipIndex] == CONCAVE) return false;
 
-        int previousIndex = previousIndex(earTipIndex);
-        int nextIndex = nextIndex(earTipIndex);
-        short[] indices = this.indices;
+        int[] next = this.next;
+        int previousIndex = previous[earTipIndex];
+        int nextIndex = next[earTipIndex];
+        int[] indices = this.indices;
         int p1 = indices[previousIndex] * 2;
         int p2 = indices[earTipIndex] * 2;
         int p3 = indices[nextIndex] * 2;
@@ -178,9 +368,11 @@ public class Triangulator {
         float p2x = vertices[p2], p2y = vertices[p2 + 1];
         float p3x = vertices[p3], p3y = vertices[p3 + 1];
 
+        if (useGrid) return !isAnyIndexedVertexInside(previousIndex, earTipIndex, nextIndex, p1x, p1y, p2x, p2y, p3x, p3y);
+
         // Check if any point is inside the triangle formed by previous, current and next vertices.
         // Only consider vertices that are not part of this triangle, or else we'll always find one inside.
-        for (int i = nextIndex(nextIndex); i != previousIndex; i = nextIndex(i)) {
+        for (int i = next[nextIndex]; i != previousIndex; i = next[i]) {
             // Concave vertices can obviously be inside the candidate ear, but so can tangential vertices
             // if they coincide with one of the triangle's vertices.
             if (vertexTypes[i] != CONVEX) {
@@ -200,26 +392,137 @@ public class Triangulator {
         return true;
     }
 
+    /** Emits the ear triangle and unlinks its tip from the ring in constant time. */
     private void cutEarTip(int earTipIndex) {
-        short[] indices = this.indices;
-        ArrayList<Short> triangles = this.triangles;
+        int[] indices = this.indices;
+        int[] triangles = this.triangles;
+        int previousIndex = previous[earTipIndex];
+        int nextIndex = next[earTipIndex];
 
-        triangles.add(indices[previousIndex(earTipIndex)]);
-        triangles.add(indices[earTipIndex]);
-        triangles.add(indices[nextIndex(earTipIndex)]);
+        triangles[triangleIndexCount++] = indices[previousIndex];
+        triangles[triangleIndexCount++] = indices[earTipIndex];
+        triangles[triangleIndexCount++] = indices[nextIndex];
 
+        next[previousIndex] = nextIndex;
+        previous[nextIndex] = previousIndex;
         vertexCount--;
-        for (int i = earTipIndex; i < vertexCount; i++) {
-            indicesArray[i] = indicesArray[i + 1];
-            vertexTypes[i] = vertexTypes[i + 1];
+        if (useGrid && vertexCell[earTipIndex] >= 0) removeFromGrid(earTipIndex);
+    }
+
+    /** Indexes all reflex and tangential vertices in a uniform grid of about one cell per vertex over the polygon bounds.
+     * Cells follow the aspect ratio of the bounds so that long thin polygons are split along their length. */
+    private void buildGrid(int offset, int count) {
+        float[] vertices = this.vertices;
+        float minX = Float.POSITIVE_INFINITY, minY = Float.POSITIVE_INFINITY;
+        float maxX = Float.NEGATIVE_INFINITY, maxY = Float.NEGATIVE_INFINITY;
+        for (int i = offset, n = offset + count - 1; i < n; i += 2) {
+            minX = Math.min(minX, vertices[i]);
+            maxX = Math.max(maxX, vertices[i]);
+            minY = Math.min(minY, vertices[i + 1]);
+            maxY = Math.max(maxY, vertices[i + 1]);
+        }
+        int vertexCount = this.vertexCount;
+        float width = maxX - minX, height = maxY - minY;
+        int gridColumns, gridRows;
+        if (width <= 0 || height <= 0) {
+            gridColumns = width > 0 ? vertexCount : 1;
+            gridRows = height > 0 ? vertexCount : 1;
+        } else {
+            double aspect = width / height;
+            gridColumns = (int) Math.max(1, Math.min(vertexCount, Math.ceil(Math.sqrt(vertexCount * aspect))));
+            gridRows = (int) Math.max(1, Math.min(vertexCount, Math.ceil((double) vertexCount / gridColumns)));
+        }
+        this.gridColumns = gridColumns;
+        this.gridRows = gridRows;
+        gridMinX = minX;
+        gridMinY = minY;
+        gridScaleX = width > 0 ? gridColumns / width : 0;
+        gridScaleY = height > 0 ? gridRows / height : 0;
+
+        int cellCount = gridColumns * gridRows;
+        if (cellFirst == null || cellFirst.length < cellCount) cellFirst = new int[cellCount];
+        if (vertexCell == null || vertexCell.length < vertexCount) {
+            cellPrevious = new int[vertexCount];
+            cellNext = new int[vertexCount];
+            vertexCell = new int[vertexCount];
         }
+        int[] cellFirst = this.cellFirst;
+        for (int i = 0; i < cellCount; i++)
+            cellFirst[i] = -1;
+        int[] vertexCell = this.vertexCell;
+        for (int i = 0; i < vertexCount; i++) {
+            vertexCell[i] = -1;
+            if (vertexTypes[i] != CONVEX) addToGrid(i);
+        }
+    }
+
+    private int cellColumn(float x) {
+        return Math.min(gridColumns - 1, Math.max(0, (int) ((x - gridMinX) * gridScaleX)));
+    }
+
+    private int cellRow(float y) {
+        return Math.min(gridRows - 1, Math.max(0, (int) ((y - gridMinY) * gridScaleY)));
+    }
+
+    private void addToGrid(int index) {
+        int v = indices[index] * 2;
+        int cell = cellRow(vertices[v + 1]) * gridColumns + cellColumn(vertices[v]);
+        int first = cellFirst[cell];
+        cellPrevious[index] = -1;
+        cellNext[index] = first;
+        if (first >= 0) cellPrevious[first] = index;
+        cellFirst[cell] = index;
+        vertexCell[index] = cell;
     }
 
-    private int previousIndex(int index) {
-        return (index == 0 ? vertexCount : index) - 1;
+    private void removeFromGrid(int index) {
+        int previousInCell = cellPrevious[index];
+        int nextInCell = cellNext[index];
+        if (previousInCell >= 0)
+            cellNext[previousInCell] = nextInCell;
+        else
+            cellFirst[vertexCell[index]] = nextInCell;
+        if (nextInCell >= 0) cellPrevious[nextInCell] = previousInCell;
+        vertexCell[index] = -1;
     }
 
-    private int nextIndex(int index) {
-        return (index + 1) % vertexCount;
+    /** Adds a reclassified vertex to the grid or removes it, so that exactly the non convex vertices are indexed. */
+    private void updateGrid(int index) {
+        boolean indexed = vertexCell[index] >= 0;
+        boolean convex = vertexTypes[index] == CONVEX;
+        if (convex && indexed)
+            removeFromGrid(index);
+        else if (!convex && !indexed) addToGrid(index);
+    }
+
+    /** Checks the indexed vertices in the cells overlapping the bounds of the candidate ear.
+     * @return true if any indexed vertex other than the triangle corners is inside or on the edge of the triangle. */
+    private boolean isAnyIndexedVertexInside(int previousIndex, int earTipIndex, int nextIndex, float p1x, float p1y,
+                                             float p2x, float p2y, float p3x, float p3y) {
+        int fromColumn = cellColumn(Math.min(p1x, Math.min(p2x, p3x)));
+        int toColumn = cellColumn(Math.max(p1x, Math.max(p2x, p3x)));
+        int fromRow = cellRow(Math.min(p1y, Math.min(p2y, p3y)));
+        int toRow = cellRow(Math.max(p1y, Math.max(p2y, p3y)));
+        int[] cellFirst = this.cellFirst;
+        int[] cellNext = this.cellNext;
+        int[] indices = this.indices;
+        float[] vertices = this.vertices;
+        for (int row = fromRow; row <= toRow; row++) {
+            for (int cell = row * gridColumns + fromColumn, last = row * gridColumns + toColumn; cell <= last; cell++) {
+                for (int i = cellFirst[cell]; i >= 0; i = cellNext[i]) {
+                    if (i == previousIndex || i == earTipIndex || i == nextIndex) continue;
+                    int v = indices[i] * 2;
+                    float vx = vertices[v];
+                    float vy = vertices[v + 1];
+                    // Same test as the linear scan in isEarTip.
+                    if (computeSpannedAreaSign(p3x, p3y, p1x, p1y, vx, vy) >= 0) {
+                        if (computeSpannedAreaSign(p1x, p1y, p2x, p2y, vx, vy) >= 0) {
+                            if (computeSpannedAreaSign(p2x, p2y, p3x, p3y, vx, vy) >= 0) return true;
+                        }
+                    }
+                }
+            }
+        }
+        return false;
     }
-}
\ No newline at end of file
+}
@@ -2,6 +2,7 @@ package com.firtzberg.lines2polygons.drawing;
 
 import android.content.Context;
 import android.content.res.TypedArray;
+import android.graphics.Bitmap;
 import android.graphics.Canvas;
 import android.graphics.Color;
 import android.graphics.Paint;
@@ -61,6 +62,19 @@ public class GridView extends View {
      * Gesture detector.
      */
     private GestureDetector detector;
+    /**
+     * Paper, frame and lines of the grid drawn once and reused while only the candidate changes.
+     * Null until first drawn.
+     */
+    private Bitmap layer;
+    /**
+     * Grid, its revision and the scale and offsets with which the layer was drawn.
+     */
+    private GridWithHistory layerGrid;
+    private int layerRevision;
+    private float layerPixelsPerUnit;
+    private float layerPaddingLeft;
+    private float layerPaddingTop;
 
     public GridView(Context context) {
         super(context);
@@ -165,7 +179,8 @@ public class GridView extends View {
         int contentWidth = getWidth() - paddingLeft - paddingRight;
         int contentHeight = getHeight() - paddingTop - paddingBottom;
 
-        if (grid != null) {
+        // An empty layer can not be created, nothing would be visible anyway.
+        if (grid != null && getWidth() > 0 && getHeight() > 0) {
             float pixelsPerHeightUnit = contentHeight / grid.height;
             float pixelsPerWidthUnit = contentWidth / grid.width;
             float overflow;
@@ -191,14 +206,13 @@ public class GridView extends View {
             paddingRight = paddingLeft + contentWidth;
             paddingBottom = paddingTop + contentHeight;
 
-            // draw paper and frame
-            canvas.drawRect(paddingLeft, paddingTop, paddingRight, paddingBottom, paperPaint);
-            canvas.drawRect(paddingLeft, paddingTop, paddingRight, paddingBottom, linePaint);
+            // Paper, frame and lines are only redrawn after the grid or the layout changed.
+            if (layer == null || layer.getWidth() != getWidth() || layer.getHeight() != getHeight()
+                    || layerGrid != grid || layerRevision != grid.getRevision() || layerPixelsPerUnit != pixelsPerUnit
+                    || layerPaddingLeft != paddingLeft || layerPaddingTop != paddingTop)
+                drawLayer(paddingLeft, paddingTop, paddingRight, paddingBottom);
+            canvas.drawBitmap(layer, 0, 0, null);
 
-            // draw lines
-            for (Line line : grid.getLines()) {
-                drawLine(canvas, line, linePaint);
-            }
             // draw candidate
             if (candidate != null) {
                 drawLine(canvas, candidate, candidatePaint);
@@ -206,6 +220,49 @@ public class GridView extends View {
         }
     }
 
+    /**
+     * Draws paper, frame and lines of the grid to the layer, creating the layer if the view size changed.
+     *
+     * @param left   Left edge of the paper.
+     * @param top    Top edge of the paper.
+     * @param right  Right edge of the paper.
+     * @param bottom Bottom edge of the paper.
+     */
+    private void drawLayer(float left, float top, float right, float bottom) {
+        if (layer == null || layer.getWidth() != getWidth() || layer.getHeight() != getHeight()) {
+            if (layer != null)
+                layer.recycle();
+            layer = Bitmap.createBitmap(getWidth(), getHeight(), Bitmap.Config.ARGB_8888);
+        } else
+            layer.eraseColor(Color.TRANSPARENT);
+        Canvas canvas = new Canvas(layer);
+
+        // draw paper and frame
+        canvas.drawRect(left, top, right, bottom, paperPaint);
+        canvas.drawRect(left, top, right, bottom, linePaint);
+
+        // draw lines
+        for (Line line : grid.getLines()) {
+            drawLine(canvas, line, linePaint);
+        }
+
+        layerGrid = grid;
+        layerRevision = grid.getRevision();
+        layerPixelsPerUnit = pixelsPerUnit;
+        layerPaddingLeft = paddingLeft;
+        layerPaddingTop = paddingTop;
+    }
+
+    @Override
+    protected void onDetachedFromWindow() {
+        super.onDetachedFromWindow();
+        // The layer is as large as the view, so it is not kept while the view is not shown.
+        if (layer != null) {
+            layer.recycle();
+            layer = null;
+        }
+    }
+
     /**
      * Draws a line on the canvas.
      *
@@ -3,27 +3,52 @@ package com.firtzberg.lines2polygons.drawing;
 import com.firtzberg.lines2polygons.elements.Grid;
 import com.firtzberg.lines2polygons.elements.Line;
 
+import java.util.ArrayDeque;
+import java.util.ArrayList;
 import java.util.Collections;
+import java.util.Comparator;
+import java.util.IdentityHashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Queue;
 import java.util.Stack;
 
 /**
  * Created by hrvoje on 15.10.17..
  * Grid with lines keeping track of history states and notifying observers on change.
+ * <p>History is kept as a log of changes, each holding only the lines it added and removed,
+ * so an edit, undo or redo costs time and memory proportional to the lines it changes.
+ * Lines are tracked by identity and removing a line moves the last line to its place,
+ * so the order of lines changes with edits.
+ * Lines are a persistent vector, consecutive states share their structure and {@link #snapshot()} is free.</p>
  */
 public class GridWithHistory extends Grid {
 
     /**
-     * Stack of previous sets of lines.
+     * Stack of changes which can be undone.
      */
-    private final Stack<Line[]> previousStates;
+    private final Stack<Change> previousChanges;
     /**
-     * Stack of undone sets of lines.
+     * Stack of undone changes.
      */
-    private final Stack<Line[]> undoneStates;
+    private final Stack<Change> undoneChanges;
+    /**
+     * Position of every current line in the list of lines.
+     */
+    private final Map<Line, Integer> positions;
     /**
      * Observer to be notified when set of lines changes.
      */
     private GridObserver observer;
+    /**
+     * Spatial index of the current lines.
+     */
+    private final LineIndex lineIndex;
+    /**
+     * Number of changes of the lines, allows views to keep what they derived from an unchanged grid.
+     */
+    private int revision;
 
     /**
      * Creates new grid with history states with specified dimensions.
@@ -33,8 +58,10 @@ public class GridWithHistory extends Grid {
      */
     public GridWithHistory(float width, float height) {
         super(width, height);
-        previousStates = new Stack<>();
-        undoneStates = new Stack<>();
+        previousChanges = new Stack<>();
+        undoneChanges = new Stack<>();
+        positions = new IdentityHashMap<>();
+        lineIndex = new LineIndex(width, height);
     }
 
     /**
@@ -47,13 +74,30 @@ public class GridWithHistory extends Grid {
         if (observer != null) observer.onChange(this);
     }
 
+    /**
+     * Gets the revision of the lines. It changes whenever observers are notified about a change of the lines.
+     *
+     * @return Revision of the lines.
+     */
+    public int getRevision() {
+        return revision;
+    }
+
+    /**
+     * Counts a change of the lines and notifies the observer.
+     */
+    private void onChange() {
+        revision++;
+        if (observer != null) observer.onChange(this);
+    }
+
     /**
      * Checks whether an action can be undone.
      *
      * @return True when action can be undone, false otherwise.
      */
     public boolean canUndo() {
-        return !previousStates.isEmpty();
+        return !previousChanges.isEmpty();
     }
 
     /**
@@ -62,7 +106,7 @@ public class GridWithHistory extends Grid {
      * @return True when action can be redone, false otherwise.
      */
     public boolean canRedo() {
-        return !undoneStates.isEmpty();
+        return !undoneChanges.isEmpty();
     }
 
     /**
@@ -71,20 +115,15 @@ public class GridWithHistory extends Grid {
      * @return True if action was undone, false otherwise.
      */
     public boolean Undo() {
-        if (previousStates.isEmpty())
+        if (previousChanges.isEmpty())
             return false;
 
-        // save current state
-        Line[] state = new Line[lines.size()];
-        lines.toArray(state);
-        undoneStates.push(state);
-
-        // set previous state
-        lines.clear();
-        Collections.addAll(lines, previousStates.pop());
+        Change change = previousChanges.pop();
+        apply(change.added, change.removed);
+        undoneChanges.push(change);
 
         // notify observer
-        if (observer != null) observer.onChange(this);
+        onChange();
         return true;
     }
 
@@ -94,80 +133,165 @@ public class GridWithHistory extends Grid {
      * @return True if action was redone, false otherwise.
      */
     public boolean Redo() {
-        if (undoneStates.isEmpty())
+        if (undoneChanges.isEmpty())
             return false;
-        // save current state
-        Line[] state = new Line[lines.size()];
-        lines.toArray(state);
-        previousStates.push(state);
 
-        // set state
-        lines.clear();
-        Collections.addAll(lines, undoneStates.pop());
+        Change change = undoneChanges.pop();
+        apply(change.removed, change.added);
+        previousChanges.push(change);
 
         // notify observer
-        if (observer != null) observer.onChange(this);
+        onChange();
         return true;
     }
 
     @Override
     public void addLine(Line line) {
-        // save current state
-        Line[] state = new Line[lines.size()];
-        lines.toArray(state);
-        previousStates.push(state);
+        // Lines are tracked by identity, so a line already in the grid is added as a copy.
+        if (positions.containsKey(line))
+            line = new Line(line.start, line.end);
+        insert(line);
+        record(new Line[]{line}, new Line[0]);
+    }
 
-        super.addLine(line);
+    /**
+     * Erases parts of lines overlapped by the rubber.
+     * Fragments of partially erased lines are kept.
+     *
+     * @param rubber Line along which lines are erased.
+     */
+    public void Erase(Line rubber) {
+        // Only lines sharing an index cell with the rubber can overlap it.
+        List<Line> erased = new ArrayList<>();
+        for (Line line : lineIndex.findNear(rubber)) {
+            if (line.overlap(rubber))
+                erased.add(line);
+        }
+        if (erased.isEmpty())
+            return;
+        // Lines are erased in the order of the grid, so the result does not depend on the index.
+        Collections.sort(erased, new Comparator<Line>() {
+            @Override
+            public int compare(Line a, Line b) {
+                return positions.get(a) - positions.get(b);
+            }
+        });
 
-        // clear undone moves
-        undoneStates.clear();
+        Queue<Line> fragments = new ArrayDeque<>();
+        for (int i = 0; i < erased.size(); i++) {
+            delete(erased.get(i));
+            addFragments(erased.get(i), rubber, fragments);
+        }
+        // Fragments are added, unless they are overlapped too.
+        List<Line> added = new ArrayList<>();
+        while (!fragments.isEmpty()) {
+            Line fragment = fragments.poll();
+            if (fragment.overlap(rubber))
+                addFragments(fragment, rubber, fragments);
+            else {
+                insert(fragment);
+                added.add(fragment);
+            }
+        }
 
-        // notify observer
-        if (observer != null) observer.onChange(this);
+        record(added.toArray(new Line[added.size()]), erased.toArray(new Line[erased.size()]));
     }
 
-    public void Erase(Line rubber) {
-        // Preserve initial state to store it to the previous in case of change.
-        Line[] state = new Line[lines.size()];
-        lines.toArray(state);
-        boolean changed = false;
-
-        // Remove overlapped lines.
-        for (int i = 0; i < lines.size(); i++) {
-            Line line = lines.get(i);
-            if (line.overlap(rubber)) {
-                lines.remove(i--);
-                changed = true;
-                Line toStart;
-                Line toEnd;
-                // Preserve line fragment around start point of incompletely erased line
-                if (!rubber.contains(line.start, true)) {
-                    toStart = new Line(line.start, rubber.start);
-                    toEnd = new Line(line.start, rubber.end);
-                    if (toStart.vector.manhattanDistance() < toEnd.vector.manhattanDistance()) {
-                        lines.add(toStart);
-                    } else {
-                        lines.add(toEnd);
-                    }
-                }
-                // Preserve line fragment around end point of incompletely erased line
-                if (!rubber.contains(line.end, true)) {
-                    toStart = new Line(line.end, rubber.start);
-                    toEnd = new Line(line.end, rubber.end);
-
-                    if (toStart.vector.manhattanDistance() < toEnd.vector.manhattanDistance()) {
-                        lines.add(toStart);
-                    } else {
-                        lines.add(toEnd);
-                    }
-                }
+    /**
+     * Adds the fragments of an overlapped line which remain after erasing.
+     *
+     * @param line      Line overlapped by the rubber.
+     * @param rubber    Line along which lines are erased.
+     * @param fragments Queue to which the fragments are added.
+     */
+    private static void addFragments(Line line, Line rubber, Queue<Line> fragments) {
+        Line toStart;
+        Line toEnd;
+        // Preserve line fragment around start point of incompletely erased line
+        if (!rubber.contains(line.start, true)) {
+            toStart = new Line(line.start, rubber.start);
+            toEnd = new Line(line.start, rubber.end);
+            if (toStart.vector.manhattanDistance() < toEnd.vector.manhattanDistance()) {
+                fragments.add(toStart);
+            } else {
+                fragments.add(toEnd);
+            }
+        }
+        // Preserve line fragment around end point of incompletely erased line
+        if (!rubber.contains(line.end, true)) {
+            toStart = new Line(line.end, rubber.start);
+            toEnd = new Line(line.end, rubber.end);
+
+            if (toStart.vector.manhattanDistance() < toEnd.vector.manhattanDistance()) {
+                fragments.add(toStart);
+            } else {
+                fragments.add(toEnd);
             }
         }
-        // if change occurred save initial state to previous states
-        if (changed) {
-            previousStates.push(state);
-            undoneStates.clear();
-            if (observer != null) observer.onChange(this);
+    }
+
+    /**
+     * Stores a new change in the history, discarding undone changes, and notifies the observer.
+     *
+     * @param added   Lines added by the change.
+     * @param removed Lines removed by the change.
+     */
+    private void record(Line[] added, Line[] removed) {
+        previousChanges.push(new Change(added, removed));
+        undoneChanges.clear();
+        onChange();
+    }
+
+    /**
+     * Removes and adds lines.
+     *
+     * @param removed Lines currently in the grid to be removed.
+     * @param added   Lines to be added.
+     */
+    private void apply(Line[] removed, Line[] added) {
+        for (Line line : removed)
+            delete(line);
+        for (Line line : added)
+            insert(line);
+    }
+
+    /**
+     * Appends a line to the lines and the index.
+     *
+     * @param line Line not in the grid.
+     */
+    private void insert(Line line) {
+        positions.put(line, lines.size());
+        lines = lines.plus(line);
+        lineIndex.add(line);
+    }
+
+    /**
+     * Removes a line from the lines and the index, moving the last line to its place.
+     *
+     * @param line Line in the grid.
+     */
+    private void delete(Line line) {
+        int position = positions.remove(line);
+        Line last = lines.get(lines.size() - 1);
+        lines = lines.minusLast();
+        if (last != line) {
+            lines = lines.with(position, last);
+            positions.put(last, position);
+        }
+        lineIndex.remove(line);
+    }
+
+    /**
+     * Lines added and removed by an action. Undoing it removes the added lines and adds back the removed ones.
+     */
+    private static class Change {
+        final Line[] added;
+        final Line[] removed;
+
+        Change(Line[] added, Line[] removed) {
+            this.added = added;
+            this.removed = removed;
         }
     }
 
@@ -0,0 +1,149 @@
+package com.firtzberg.lines2polygons.drawing;
+
+import com.firtzberg.lines2polygons.elements.Line;
+import com.firtzberg.lines2polygons.elements.Point;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Bucket grid over the lines of a grid, allowing lookup of lines near a given line.
+ * The grid is split into cells and each line is kept in every cell it passes through.
+ * Points outside the grid are treated as if they were in the nearest cell.
+ * <p>Lines are tracked by identity, so equal lines added twice are kept twice.</p>
+ */
+class LineIndex {
+    /**
+     * Number of cells along each side of the grid.
+     */
+    private static final int CELLS_PER_SIDE = 32;
+    /**
+     * Size of a cell in grid units.
+     */
+    private final float cellWidth, cellHeight;
+    /**
+     * Lines of each cell, row by row. Null for cells never containing a line.
+     */
+    private final List<List<Line>> cells;
+    /**
+     * Reused list of cells through which a line passes.
+     */
+    private int[] lineCells = new int[2 * CELLS_PER_SIDE];
+    private int lineCellCount;
+
+    /**
+     * Creates an empty index.
+     *
+     * @param width  Width of the grid.
+     * @param height Height of the grid.
+     */
+    LineIndex(float width, float height) {
+        cellWidth = Math.max(width, 1) / CELLS_PER_SIDE;
+        cellHeight = Math.max(height, 1) / CELLS_PER_SIDE;
+        cells = new ArrayList<>(Collections.<List<Line>>nCopies(CELLS_PER_SIDE * CELLS_PER_SIDE, null));
+    }
+
+    /**
+     * Adds a line.
+     *
+     * @param line Line to be added.
+     */
+    void add(Line line) {
+        findCells(line);
+        for (int i = 0; i < lineCellCount; i++) {
+            List<Line> cell = cells.get(lineCells[i]);
+            if (cell == null) {
+                cell = new ArrayList<>();
+                cells.set(lineCells[i], cell);
+            }
+            cell.add(line);
+        }
+    }
+
+    /**
+     * Removes a line added earlier.
+     *
+     * @param line The added line instance.
+     */
+    void remove(Line line) {
+        findCells(line);
+        for (int i = 0; i < lineCellCount; i++) {
+            List<Line> cell = cells.get(lineCells[i]);
+            if (cell == null)
+                continue;
+            for (int j = 0; j < cell.size(); j++) {
+                if (cell.get(j) == line) {
+                    // Order within a cell does not matter, so the last line takes the place of the removed one.
+                    cell.set(j, cell.get(cell.size() - 1));
+                    cell.remove(cell.size() - 1);
+                    break;
+                }
+            }
+        }
+    }
+
+    /**
+     * Finds lines sharing a cell with the given line. All lines touching the given line are among them.
+     *
+     * @param line Line around which lines are searched.
+     * @return New set of line instances compared by identity.
+     */
+    Set<Line> findNear(Line line) {
+        Set<Line> near = Collections.newSetFromMap(new IdentityHashMap<Line, Boolean>());
+        findCells(line);
+        for (int i = 0; i < lineCellCount; i++) {
+            List<Line> cell = cells.get(lineCells[i]);
+            if (cell != null)
+                near.addAll(cell);
+        }
+        return near;
+    }
+
+    /**
+     * Stores the cells through which the line passes, extended by {@link Point#GRANULARITY}, in {@link #lineCells}.
+     *
+     * @param line Line whose cells are found.
+     */
+    private void findCells(Line line) {
+        float x0 = line.start.x, y0 = line.start.y, x1 = line.end.x, y1 = line.end.y;
+        float minY = Math.min(y0, y1) - Point.GRANULARITY, maxY = Math.max(y0, y1) + Point.GRANULARITY;
+        int firstRow = row(minY), lastRow = row(maxY);
+        lineCellCount = 0;
+        for (int row = firstRow; row <= lastRow; row++) {
+            // Part of the line within the row, the whole line if it is horizontal.
+            float fromX, toX;
+            if (Math.abs(y1 - y0) < Point.GRANULARITY) {
+                fromX = Math.min(x0, x1);
+                toX = Math.max(x0, x1);
+            } else {
+                float top = row == firstRow ? minY : row * cellHeight;
+                float bottom = row == lastRow ? maxY : (row + 1) * cellHeight;
+                float topX = x0 + (x1 - x0) * clamp((top - y0) / (y1 - y0));
+                float bottomX = x0 + (x1 - x0) * clamp((bottom - y0) / (y1 - y0));
+                fromX = Math.min(topX, bottomX);
+                toX = Math.max(topX, bottomX);
+            }
+            int firstColumn = column(fromX - Point.GRANULARITY), lastColumn = column(toX + Point.GRANULARITY);
+            if (lineCells.length < lineCellCount + lastColumn - firstColumn + 1)
+                lineCells = Arrays.copyOf(lineCells, 2 * (lineCellCount + lastColumn - firstColumn + 1));
+            for (int column = firstColumn; column <= lastColumn; column++)
+                lineCells[lineCellCount++] = row * CELLS_PER_SIDE + column;
+        }
+    }
+
+    private static float clamp(float t) {
+        return t < 0 ? 0 : t > 1 ? 1 : t;
+    }
+
+    private int row(float y) {
+        return Math.max(0, Math.min(CELLS_PER_SIDE - 1, (int) Math.floor(y / cellHeight)));
+    }
+
+    private int column(float x) {
+        return Math.max(0, Math.min(CELLS_PER_SIDE - 1, (int) Math.floor(x / cellWidth)));
+    }
+}
@@ -0,0 +1,77 @@
+package com.firtzberg.lines2polygons.elements;
+
+/**
+ * Immutable closed sequence of points stored as packed x, y pairs.
+ * Allows per point access without creating point objects.
+ */
+public class Border {
+    /**
+     * Interleaved x and y coordinates of the points.
+     */
+    private final float[] coordinates;
+    /**
+     * Number of points. Coordinates past the last point are unused.
+     */
+    private final int pointCount;
+
+    /**
+     * Creates a border backed by the given array. The array must not be modified afterwards.
+     *
+     * @param coordinates Interleaved x and y coordinates.
+     * @param pointCount  Number of points stored at the start of coordinates.
+     */
+    public Border(float[] coordinates, int pointCount) {
+        if (pointCount < 0 || pointCount * 2 > coordinates.length)
+            throw new IllegalArgumentException("Point count does not fit the coordinates.");
+        this.coordinates = coordinates;
+        this.pointCount = pointCount;
+    }
+
+    /**
+     * Gets the number of points.
+     *
+     * @return Number of points.
+     */
+    public int getPointCount() {
+        return pointCount;
+    }
+
+    /**
+     * Gets the x coordinate of a point.
+     *
+     * @param index Index of the point.
+     * @return X coordinate.
+     */
+    public float getX(int index) {
+        return coordinates[2 * index];
+    }
+
+    /**
+     * Gets the y coordinate of a point.
+     *
+     * @param index Index of the point.
+     * @return Y coordinate.
+     */
+    public float getY(int index) {
+        return coordinates[2 * index + 1];
+    }
+
+    /**
+     * Gets the backing array of interleaved x and y coordinates.
+     * <p>Do not edit the array. Only the first {@link #getCoordinateCount()} values are valid.</p>
+     *
+     * @return Backing array.
+     */
+    public float[] getCoordinates() {
+        return coordinates;
+    }
+
+    /**
+     * Gets the number of valid values in the backing array.
+     *
+     * @return Two times the number of points.
+     */
+    public int getCoordinateCount() {
+        return pointCount * 2;
+    }
+}
@@ -3,9 +3,6 @@ package com.firtzberg.lines2polygons.elements;
 import android.os.Parcel;
 import android.os.Parcelable;
 
-import java.util.ArrayList;
-import java.util.List;
-
 /**
  * Created by hrvoje on 04.10.17..
  * Set of lines on a 2D grid.
@@ -37,9 +34,9 @@ public class Grid implements Parcelable {
      */
     public final float height;
     /**
-     * Approved cuts in grid.
+     * Approved cuts in grid. Replaced by a new version on every change, so versions handed out stay unchanged.
      */
-    protected final List<Line> lines;
+    protected PersistentVector<Line> lines;
 
     /**
      * Creates a new grid to which cuts and folds can be added.
@@ -50,7 +47,20 @@ public class Grid implements Parcelable {
     public Grid(float width, float height) {
         this.width = width;
         this.height = height;
-        lines = new ArrayList<>();
+        lines = PersistentVector.empty();
+    }
+
+    /**
+     * Creates a grid with the given lines.
+     *
+     * @param width  Width of grid.
+     * @param height Height of grid.
+     * @param lines  Lines of the grid.
+     */
+    protected Grid(float width, float height, PersistentVector<Line> lines) {
+        this.width = width;
+        this.height = height;
+        this.lines = lines;
     }
 
     /**
@@ -61,7 +71,7 @@ public class Grid implements Parcelable {
     protected Grid(Parcel in) throws Exception {
         width = in.readFloat();
         height = in.readFloat();
-        lines = in.createTypedArrayList(Line.CREATOR);
+        lines = PersistentVector.of(in.createTypedArrayList(Line.CREATOR));
     }
 
     /**
@@ -70,7 +80,18 @@ public class Grid implements Parcelable {
      * @param line Line to be added.
      */
     public void addLine(Line line) {
-        lines.add(line);
+        lines = lines.plus(line);
+    }
+
+    /**
+     * Creates a grid with the current lines in constant time, sharing them with this grid.
+     * Later changes of either grid are not visible in the other one, so the snapshot can be read on
+     * another thread while this grid is edited.
+     *
+     * @return Grid with the current lines.
+     */
+    public Grid snapshot() {
+        return new Grid(width, height, lines);
     }
 
     /**
@@ -82,6 +103,15 @@ public class Grid implements Parcelable {
         return lines;
     }
 
+    /**
+     * Gets the number of current lines.
+     *
+     * @return Number of current lines.
+     */
+    public int getLineCount() {
+        return lines.size();
+    }
+
     @Override
     public int describeContents() {
         return 0;
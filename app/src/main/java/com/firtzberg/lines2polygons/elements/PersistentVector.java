@@ -0,0 +1,252 @@
+package com.firtzberg.lines2polygons.elements;
+
+import java.util.AbstractList;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+import java.util.RandomAccess;
+
+/**
+ * Immutable list whose modified versions share most of their structure with the original.
+ * Elements are stored in a tree of arrays with 32 children per node, except for the last up to 32 elements
+ * which are kept in a separate tail array, so appending usually copies only the tail.
+ * Changing, appending or removing the last element copies at most one array per tree level,
+ * taking effectively constant time, and keeping a version is free.
+ * <p>Modifying methods of {@link java.util.List} throw {@link UnsupportedOperationException},
+ * {@link #plus(Object)}, {@link #with(int, Object)} and {@link #minusLast()} return new versions instead.</p>
+ *
+ * @param <E> Type of elements.
+ */
+public final class PersistentVector<E> extends AbstractList<E> implements RandomAccess {
+    /**
+     * Number of index bits handled by a tree level.
+     */
+    private static final int BITS = 5;
+    /**
+     * Number of children of a node.
+     */
+    private static final int WIDTH = 1 << BITS;
+    private static final int MASK = WIDTH - 1;
+    private static final Object[] EMPTY_NODE = new Object[WIDTH];
+    private static final PersistentVector<?> EMPTY = new PersistentVector<>(0, BITS, EMPTY_NODE, new Object[0]);
+
+    private final int size;
+    /**
+     * Index bits below the root level.
+     */
+    private final int shift;
+    private final Object[] root;
+    /**
+     * Last elements not yet stored in the tree.
+     */
+    private final Object[] tail;
+
+    private PersistentVector(int size, int shift, Object[] root, Object[] tail) {
+        this.size = size;
+        this.shift = shift;
+        this.root = root;
+        this.tail = tail;
+    }
+
+    /**
+     * Gets the empty vector.
+     *
+     * @param <E> Type of elements.
+     * @return Vector without elements.
+     */
+    @SuppressWarnings("unchecked")
+    public static <E> PersistentVector<E> empty() {
+        return (PersistentVector<E>) EMPTY;
+    }
+
+    /**
+     * Creates a vector of the given elements.
+     *
+     * @param elements Elements in order.
+     * @param <E>      Type of elements.
+     * @return Vector of the elements.
+     */
+    public static <E> PersistentVector<E> of(Iterable<? extends E> elements) {
+        PersistentVector<E> vector = empty();
+        for (E element : elements)
+            vector = vector.plus(element);
+        return vector;
+    }
+
+    @Override
+    public int size() {
+        return size;
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public E get(int index) {
+        if (index < 0 || index >= size)
+            throw new IndexOutOfBoundsException("Index " + index + " out of " + size);
+        return (E) arrayFor(index)[index & MASK];
+    }
+
+    /**
+     * Index of the first element in the tail.
+     */
+    private int tailOffset() {
+        return size < WIDTH ? 0 : ((size - 1) >>> BITS) << BITS;
+    }
+
+    /**
+     * Finds the array holding the element at the index.
+     */
+    private Object[] arrayFor(int index) {
+        if (index >= tailOffset())
+            return tail;
+        Object[] node = root;
+        for (int level = shift; level > 0; level -= BITS)
+            node = (Object[]) node[(index >>> level) & MASK];
+        return node;
+    }
+
+    /**
+     * Creates a version with the element at the index replaced.
+     *
+     * @param index   Index of the replaced element.
+     * @param element New element.
+     * @return New version of the vector.
+     */
+    public PersistentVector<E> with(int index, E element) {
+        if (index < 0 || index >= size)
+            throw new IndexOutOfBoundsException("Index " + index + " out of " + size);
+        if (index >= tailOffset()) {
+            Object[] newTail = tail.clone();
+            newTail[index & MASK] = element;
+            return new PersistentVector<>(size, shift, root, newTail);
+        }
+        return new PersistentVector<>(size, shift, replace(shift, root, index, element), tail);
+    }
+
+    private static Object[] replace(int level, Object[] node, int index, Object element) {
+        Object[] copy = node.clone();
+        if (level == 0)
+            copy[index & MASK] = element;
+        else {
+            int child = (index >>> level) & MASK;
+            copy[child] = replace(level - BITS, (Object[]) node[child], index, element);
+        }
+        return copy;
+    }
+
+    /**
+     * Creates a version with the element appended.
+     *
+     * @param element Appended element.
+     * @return New version of the vector.
+     */
+    public PersistentVector<E> plus(E element) {
+        if (size - tailOffset() < WIDTH) {
+            Object[] newTail = Arrays.copyOf(tail, tail.length + 1);
+            newTail[tail.length] = element;
+            return new PersistentVector<>(size + 1, shift, root, newTail);
+        }
+        // The full tail moves into the tree, growing it by a level if the root is full.
+        Object[] newRoot;
+        int newShift = shift;
+        if ((size >>> BITS) > (1 << shift)) {
+            newRoot = new Object[WIDTH];
+            newRoot[0] = root;
+            newRoot[1] = newPath(shift, tail);
+            newShift += BITS;
+        } else
+            newRoot = pushTail(shift, root, tail);
+        return new PersistentVector<>(size + 1, newShift, newRoot, new Object[]{element});
+    }
+
+    private Object[] pushTail(int level, Object[] parent, Object[] tailNode) {
+        int child = ((size - 1) >>> level) & MASK;
+        Object[] copy = parent.clone();
+        if (level == BITS)
+            copy[child] = tailNode;
+        else {
+            Object[] node = (Object[]) parent[child];
+            copy[child] = node != null ? pushTail(level - BITS, node, tailNode) : newPath(level - BITS, tailNode);
+        }
+        return copy;
+    }
+
+    private static Object[] newPath(int level, Object[] node) {
+        if (level == 0)
+            return node;
+        Object[] path = new Object[WIDTH];
+        path[0] = newPath(level - BITS, node);
+        return path;
+    }
+
+    /**
+     * Creates a version without the last element.
+     *
+     * @return New version of the vector.
+     * @throws IllegalStateException If the vector is empty.
+     */
+    public PersistentVector<E> minusLast() {
+        if (size == 0)
+            throw new IllegalStateException("Vector is empty.");
+        if (size == 1)
+            return empty();
+        if (size - tailOffset() > 1)
+            return new PersistentVector<>(size - 1, shift, root, Arrays.copyOf(tail, tail.length - 1));
+        // The tail becomes empty, the last array of the tree takes its place.
+        Object[] newTail = arrayFor(size - 2);
+        Object[] newRoot = popTail(shift, root);
+        int newShift = shift;
+        if (newRoot == null)
+            newRoot = EMPTY_NODE;
+        if (shift > BITS && newRoot[1] == null) {
+            newRoot = (Object[]) newRoot[0];
+            newShift -= BITS;
+        }
+        return new PersistentVector<>(size - 1, newShift, newRoot, newTail);
+    }
+
+    private Object[] popTail(int level, Object[] node) {
+        int child = ((size - 2) >>> level) & MASK;
+        if (level > BITS) {
+            Object[] newChild = popTail(level - BITS, (Object[]) node[child]);
+            if (newChild == null && child == 0)
+                return null;
+            Object[] copy = node.clone();
+            copy[child] = newChild;
+            return copy;
+        } else if (child == 0)
+            return null;
+        Object[] copy = node.clone();
+        copy[child] = null;
+        return copy;
+    }
+
+    @Override
+    public Iterator<E> iterator() {
+        // Walks array by array instead of descending the tree for every element.
+        return new Iterator<E>() {
+            private int index;
+            private Object[] array = size > 0 ? arrayFor(0) : null;
+
+            @Override
+            public boolean hasNext() {
+                return index < size;
+            }
+
+            @Override
+            @SuppressWarnings("unchecked")
+            public E next() {
+                if (index >= size)
+                    throw new NoSuchElementException();
+                if (index > 0 && (index & MASK) == 0)
+                    array = arrayFor(index);
+                return (E) array[index++ & MASK];
+            }
+
+            @Override
+            public void remove() {
+                throw new UnsupportedOperationException();
+            }
+        };
+    }
+}
@@ -1,6 +1,6 @@
 package com.firtzberg.lines2polygons.elements;
 
-import android.util.Log;
+import com.firtzberg.lines2polygons.profiling.Tracing;
 
 import java.util.ArrayList;
 import java.util.List;
@@ -10,6 +10,10 @@ import java.util.List;
  * Set of line sides.
  */
 public class Polygon {
+    /**
+     * Tag of trace events.
+     */
+    private static final String TAG = "Polygon";
 
     /**
      * Lines enclosing polygon area.
@@ -22,14 +26,19 @@ public class Polygon {
     /**
      * Minimal set of points enclosing polygon area or null when polygon is incomplete.
      */
-    private Point[] optimisedBorders = null;
+    private Border optimisedBorder = null;
+    /**
+     * Point objects of the optimised border, created on first request.
+     */
+    private Point[] optimisedBorderPoints = null;
 
     /**
      * Creates an incomplete polygon without any line sides.
      */
     public Polygon() {
         sides = new ArrayList<>();
-        Log.d("Polygon construction", "New polygon");
+        if (Tracing.ENABLED && Tracing.isActive())
+            Tracing.trace(TAG, "New polygon", null, null, null);
     }
 
     /**
@@ -47,11 +56,13 @@ public class Polygon {
             return false;
         if (!sides.isEmpty() && !sides.get(sides.size() - 1).line.end.equals(lineSide.line.start))
             return false;
-        Log.d("Polygon construction", "Added side " + lineSide.line);
+        if (Tracing.ENABLED && Tracing.isActive())
+            Tracing.trace(TAG, "Added side", lineSide.line, null, null);
         complete = sides.size() > 0 && sides.get(0).line.equals(lineSide.line);
         if (complete) {
-            Log.d("Polygon construction", "Completed");
-            optimisedBorders = optimiseBorders();
+            if (Tracing.ENABLED && Tracing.isActive())
+                Tracing.trace(TAG, "Completed", null, null, null);
+            optimisedBorder = optimiseBorders();
         } else {
             sides.add(lineSide);
             lineSide.setAttachedPolygon(this);
@@ -62,24 +73,25 @@ public class Polygon {
     /**
      * Gets start points of line sides skipping points which are between adjacent points.
      *
-     * @return Array of start points of line sides skipping points which are between adjacent points.
+     * @return Border of start points of line sides skipping points which are between adjacent points.
      */
-    private Point[] optimiseBorders() {
-        ArrayList<Point> points = new ArrayList<>(sides.size());
-        Line previousLine = sides.get(sides.size() - 1).line;
+    private Border optimiseBorders() {
+        int sideCount = sides.size();
+        float[] coordinates = new float[sideCount * 2];
+        int pointCount = 0;
+        Line previousLine = sides.get(sideCount - 1).line;
         Line currentLine;
-        for (int sideIndex = 0; sideIndex < sides.size(); sideIndex++) {
+        for (int sideIndex = 0; sideIndex < sideCount; sideIndex++) {
             currentLine = sides.get(sideIndex).line;
-            if (!previousLine.vector.sameOrientation(currentLine.vector))
-                points.add(currentLine.start);
-            else
-                Log.d("Border optimisation", "Point " + currentLine.start + " between " + previousLine.start + " and " + currentLine.end + " skipped.");
+            if (!previousLine.vector.sameOrientation(currentLine.vector)) {
+                coordinates[2 * pointCount] = currentLine.start.x;
+                coordinates[2 * pointCount + 1] = currentLine.start.y;
+                pointCount++;
+            } else if (Tracing.ENABLED && Tracing.isActive())
+                Tracing.trace(TAG, "Skipped point between", currentLine.start, previousLine.start, currentLine.end);
             previousLine = currentLine;
         }
-
-        Point[] result = new Point[points.size()];
-        points.toArray(result);
-        return result;
+        return new Border(coordinates, pointCount);
     }
 
     /**
@@ -91,14 +103,29 @@ public class Polygon {
         return complete;
     }
 
+    /**
+     * Gets edges of the polygon as packed coordinates.
+     *
+     * @return Null if polygon is incomplete or edges of polygon.
+     */
+    public final Border getBorder() {
+        return optimisedBorder;
+    }
+
     /**
      * Gets edges of the polygon.
-     * <p>Do not edit the array.</p>
+     * <p>Do not edit the array. Point objects are created on first call, prefer {@link #getBorder()}.</p>
      *
      * @return Null if polygon is incomplete or edges of polygon.
      */
     public final Point[] getBorders() {
-        return optimisedBorders;
+        if (optimisedBorderPoints == null && optimisedBorder != null) {
+            Point[] points = new Point[optimisedBorder.getPointCount()];
+            for (int i = 0; i < points.length; i++)
+                points[i] = new Point(optimisedBorder.getX(i), optimisedBorder.getY(i));
+            optimisedBorderPoints = points;
+        }
+        return optimisedBorderPoints;
     }
 
     /**
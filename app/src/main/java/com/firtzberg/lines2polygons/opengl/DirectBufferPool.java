@@ -0,0 +1,181 @@
+package com.firtzberg.lines2polygons.opengl;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Reusable direct buffers in native byte order, grouped in power of two size classes.
+ * A buffer is borrowed with {@link #acquire(int)} and given back with {@link #release(ByteBuffer)} once nothing
+ * reads it anymore, so scenes replaced one after another reuse the same native memory instead of
+ * waiting for the garbage collector to free it.
+ * <p>Buffers beyond the maximum pooled size are left to the garbage collector.
+ * The pool is safe to be used from multiple threads.</p>
+ */
+public class DirectBufferPool {
+    /**
+     * Capacity of the smallest size class.
+     */
+    private static final int MIN_CAPACITY = 64;
+    /**
+     * Number of size classes, the largest holds buffers of 1 GiB.
+     */
+    private static final int SIZE_CLASS_COUNT = 25;
+    /**
+     * Maximum number of bytes held by free buffers.
+     */
+    private final long maxPooledBytes;
+    /**
+     * Free buffers of each size class.
+     */
+    private final List<List<ByteBuffer>> free = new ArrayList<>(SIZE_CLASS_COUNT);
+    /**
+     * Borrowed buffers not given back yet. Buffers are compared by identity, since their equality depends on content.
+     */
+    private final Set<ByteBuffer> outstanding = Collections.newSetFromMap(new IdentityHashMap<ByteBuffer, Boolean>());
+    private long pooledBytes;
+    private long outstandingBytes;
+    private long acquireCount;
+    private long reuseCount;
+    private long allocatedBytes;
+
+    /**
+     * Creates an empty pool.
+     *
+     * @param maxPooledBytes Maximum number of bytes held by free buffers.
+     */
+    public DirectBufferPool(long maxPooledBytes) {
+        if (maxPooledBytes < 0)
+            throw new IllegalArgumentException("Maximum pooled bytes must not be negative.");
+        this.maxPooledBytes = maxPooledBytes;
+        for (int i = 0; i < SIZE_CLASS_COUNT; i++)
+            free.add(new ArrayList<ByteBuffer>());
+    }
+
+    /**
+     * Finds the size class of buffers able to hold the given number of bytes.
+     *
+     * @param byteCount Number of bytes.
+     * @return Index of the size class.
+     */
+    private static int sizeClassOf(int byteCount) {
+        if (byteCount <= MIN_CAPACITY)
+            return 0;
+        int sizeClass = 32 - Integer.numberOfLeadingZeros(byteCount - 1) - Integer.numberOfTrailingZeros(MIN_CAPACITY);
+        if (sizeClass >= SIZE_CLASS_COUNT)
+            throw new IllegalArgumentException("Buffer of " + byteCount + " bytes is too large.");
+        return sizeClass;
+    }
+
+    /**
+     * Borrows a direct buffer in native byte order.
+     *
+     * @param byteCount Number of bytes needed.
+     * @return Buffer positioned at 0 with the limit at byteCount. Its capacity may be larger.
+     */
+    public synchronized ByteBuffer acquire(int byteCount) {
+        if (byteCount < 0)
+            throw new IllegalArgumentException("Byte count must not be negative.");
+        int sizeClass = sizeClassOf(byteCount);
+        List<ByteBuffer> buffers = free.get(sizeClass);
+        ByteBuffer buffer;
+        acquireCount++;
+        if (buffers.isEmpty()) {
+            buffer = ByteBuffer.allocateDirect(MIN_CAPACITY << sizeClass).order(ByteOrder.nativeOrder());
+            allocatedBytes += buffer.capacity();
+        } else {
+            buffer = buffers.remove(buffers.size() - 1);
+            pooledBytes -= buffer.capacity();
+            reuseCount++;
+        }
+        outstanding.add(buffer);
+        outstandingBytes += buffer.capacity();
+        buffer.clear();
+        buffer.limit(byteCount);
+        return buffer;
+    }
+
+    /**
+     * Gives back a buffer borrowed from this pool. The buffer and its views must not be used afterwards.
+     *
+     * @param buffer Buffer returned by {@link #acquire(int)}.
+     * @throws IllegalArgumentException If the buffer was not borrowed from this pool or was already given back.
+     */
+    public synchronized void release(ByteBuffer buffer) {
+        if (!outstanding.remove(buffer))
+            throw new IllegalArgumentException("Buffer was not borrowed from this pool or was already given back.");
+        int capacity = buffer.capacity();
+        outstandingBytes -= capacity;
+        if (pooledBytes + capacity > maxPooledBytes)
+            return;
+        free.get(sizeClassOf(capacity)).add(buffer);
+        pooledBytes += capacity;
+    }
+
+    /**
+     * Drops all free buffers, leaving them to the garbage collector.
+     */
+    public synchronized void clear() {
+        for (int i = 0; i < SIZE_CLASS_COUNT; i++)
+            free.get(i).clear();
+        pooledBytes = 0;
+    }
+
+    /**
+     * Gets the number of bytes held by free buffers.
+     *
+     * @return Number of pooled bytes.
+     */
+    public synchronized long getPooledBytes() {
+        return pooledBytes;
+    }
+
+    /**
+     * Gets the capacity of buffers borrowed and not given back.
+     *
+     * @return Number of outstanding bytes.
+     */
+    public synchronized long getOutstandingBytes() {
+        return outstandingBytes;
+    }
+
+    /**
+     * Gets the number of borrowed buffers.
+     *
+     * @return Number of acquisitions.
+     */
+    public synchronized long getAcquireCount() {
+        return acquireCount;
+    }
+
+    /**
+     * Gets the number of borrowed buffers which were taken from the pool instead of allocated.
+     *
+     * @return Number of reused buffers.
+     */
+    public synchronized long getReuseCount() {
+        return reuseCount;
+    }
+
+    /**
+     * Gets the ratio of reused buffers to all borrowed buffers.
+     *
+     * @return Reuse rate from 0 to 1, 0 if no buffer was borrowed.
+     */
+    public synchronized double getReuseRate() {
+        return acquireCount == 0 ? 0 : (double) reuseCount / acquireCount;
+    }
+
+    /**
+     * Gets the number of bytes allocated by the pool in total.
+     *
+     * @return Number of allocated bytes.
+     */
+    public synchronized long getAllocatedBytes() {
+        return allocatedBytes;
+    }
+}
@@ -0,0 +1,46 @@
+package com.firtzberg.lines2polygons.opengl;
+
+import java.nio.Buffer;
+
+/**
+ * OpenGL ES 2.0 commands issued by the renderer while drawing.
+ * Allows frames to be recorded and measured without a device, see {@link RecordingGLCommands}.
+ * Constants have the values of their GLES20 counterparts.
+ */
+public interface GLCommands {
+    int GL_DEPTH_BUFFER_BIT = 0x00000100;
+    int GL_COLOR_BUFFER_BIT = 0x00004000;
+    int GL_LINES = 0x0001;
+    int GL_TRIANGLES = 0x0004;
+    int GL_CULL_FACE = 0x0B44;
+    int GL_DEPTH_TEST = 0x0B71;
+    int GL_UNSIGNED_BYTE = 0x1401;
+    int GL_UNSIGNED_SHORT = 0x1403;
+    int GL_FLOAT = 0x1406;
+
+    void glClear(int mask);
+
+    void glClearColor(float red, float green, float blue, float alpha);
+
+    void glEnable(int cap);
+
+    void glViewport(int x, int y, int width, int height);
+
+    void glUseProgram(int program);
+
+    int glGetUniformLocation(int program, String name);
+
+    int glGetAttribLocation(int program, String name);
+
+    void glUniformMatrix4fv(int location, int count, boolean transpose, float[] value, int offset);
+
+    void glEnableVertexAttribArray(int index);
+
+    void glDisableVertexAttribArray(int index);
+
+    void glVertexAttrib4f(int index, float x, float y, float z, float w);
+
+    void glVertexAttribPointer(int index, int size, int type, boolean normalized, int stride, Buffer pointer);
+
+    void glDrawElements(int mode, int count, int type, Buffer indices);
+}
@@ -7,15 +7,9 @@ import android.opengl.Matrix;
 import android.os.SystemClock;
 
 import com.firtzberg.lines2polygons.R;
-import com.firtzberg.lines2polygons.conversion.Polygonisation;
+import com.firtzberg.lines2polygons.conversion.TriangulationCache;
 import com.firtzberg.lines2polygons.elements.Grid;
-import com.firtzberg.lines2polygons.elements.Polygon;
-
-import java.nio.ByteBuffer;
-import java.nio.ByteOrder;
-import java.nio.FloatBuffer;
-import java.util.List;
-import java.util.Random;
+import com.firtzberg.lines2polygons.profiling.Tracing;
 
 import javax.microedition.khronos.egl.EGLConfig;
 import javax.microedition.khronos.opengles.GL10;
@@ -25,38 +19,30 @@ import javax.microedition.khronos.opengles.GL10;
  */
 public class GridRenderer implements GLSurfaceView.Renderer {
     /**
-     * Activity context used to access resources.
-     */
-    private final Context mActivityContext;
-    /**
-     * Store our model data in a float buffer.
+     * Triangles of recently rendered faces, kept across renderers since most faces survive an edit of the grid.
+     * Holds up to a million coordinates and indices, 4 MiB.
      */
-    private final FloatBuffer sharedBorderColorBuffer;
+    private static final TriangulationCache TRIANGULATION_CACHE = new TriangulationCache(1024 * 1024);
     /**
-     * How many bytes per float.
+     * Mesh buffers given back by previous renderers, reused when the next grid is submitted.
      */
-    private final int mBytesPerFloat = 4;
+    private static final DirectBufferPool BUFFER_POOL = new DirectBufferPool(16 * 1024 * 1024);
     /**
-     * Size of the color data in elements.
-     */
-    private final int mColorDataSize = 4;
-    /**
-     * Used to hold a light centered on the origin in model space. We need a 4th coordinate so we can get translations to work when
-     * we multiply this by our transformation matrices.
+     * Activity context used to access resources.
      */
-    private final float[] mLightPosInModelSpace = new float[]{0.0f, 0.0f, 0.0f, 1.0f};
+    private final Context mActivityContext;
     /**
-     * Used to hold the current position of the light in world space (after transformation via model matrix).
+     * Builds meshes in the background.
      */
-    private final float[] mLightPosInWorldSpace = new float[4];
+    private final MeshPreparation preparation;
     /**
-     * Used to hold the transformed position of the light in eye space (after transformation via modelview matrix)
+     * Meshes taken from the preparation so far, drawn every frame.
      */
-    private final float[] mLightPosInEyeSpace = new float[4];
+    private final MeshScene scene = new MeshScene();
     /**
-     * Containers of data needed for drawing obtained polygons.
+     * Commands of the GL context the renderer draws in.
      */
-    OpenGLPolygon[] polygons;
+    private final GLCommands gl = AndroidGLCommands.INSTANCE;
     /**
      * Store the model matrix. This matrix is used to move models from object space (where each model can be thought
      * of being located at the center of the universe) to world space.
@@ -72,25 +58,17 @@ public class GridRenderer implements GLSurfaceView.Renderer {
      */
     private float[] mProjectionMatrix = new float[16];
     /**
-     * Allocate storage for the final combined matrix. This will be passed into the shader program.
+     * Product of the projection and view matrices, changes only with the surface.
      */
-    private float[] mMVPMatrix = new float[16];
+    private float[] mViewProjectionMatrix = new float[16];
     /**
-     * Stores a copy of the model matrix specifically for the light position.
+     * Allocate storage for the final combined matrix. This will be passed into the shader program.
      */
-    private float[] mLightModelMatrix = new float[16];
+    private float[] mMVPMatrix = new float[16];
     /**
      * This will be used to pass in the transformation matrix.
      */
     private int mMVPMatrixHandle;
-    /**
-     * This will be used to pass in the modelview matrix.
-     */
-    private int mMVMatrixHandle;
-    /**
-     * This will be used to pass in the light position.
-     */
-    private int mLightPosHandle;
     /**
      * This will be used to pass in model position information.
      */
@@ -110,36 +88,21 @@ public class GridRenderer implements GLSurfaceView.Renderer {
     public GridRenderer(final Context activityContext, Grid grid) {
         mActivityContext = activityContext;
 
-        // Define points for a cube.
-
-        // R, G, B, A
-        final float[] borderColor =
-                {
-                        0.0f, 0.0f, 0.0f, 1.0f,
-                };
-
-        // Initialize the buffers.
-
-        List<Polygon> areas = Polygonisation.gridToPolygons(grid);
-        polygons = new OpenGLPolygon[areas.size()];
-        int i = 0;
-        int maxLines = 2;
-        Random random = new Random();
-        for (Polygon area :
-                areas) {
-            polygons[i] = new OpenGLPolygon(area);
-            polygons[i].setColor(random.nextFloat(), random.nextFloat(), random.nextFloat());
-            if (polygons[i].getBorderVertexCount() > maxLines)
-                maxLines = polygons[i].getBorderVertexCount();
-            i++;
-        }
+        // Buffers are built in the background and drawn as they become ready.
+        preparation = new MeshPreparation(grid, TRIANGULATION_CACHE, BUFFER_POOL);
+        preparation.start();
+    }
 
-        sharedBorderColorBuffer = ByteBuffer.allocateDirect(maxLines * borderColor.length * mBytesPerFloat)
-                .order(ByteOrder.nativeOrder()).asFloatBuffer();
-        for (int a = 0; a < maxLines; a++) {
-            sharedBorderColorBuffer.put(borderColor);
-        }
-        sharedBorderColorBuffer.position(0);
+    /**
+     * Stops preparing buffers which will not be drawn anymore and gives all mesh buffers back to the pool.
+     * Must be called while rendering is paused, after the surface view's onPause().
+     */
+    public void release() {
+        preparation.cancel();
+        scene.release();
+        if (Tracing.ENABLED && Tracing.isActive())
+            Tracing.trace("GridRenderer", "Buffer pool reuses, acquisitions, outstanding bytes",
+                    BUFFER_POOL.getReuseCount(), BUFFER_POOL.getAcquireCount(), BUFFER_POOL.getOutstandingBytes());
     }
 
     /**
@@ -163,13 +126,13 @@ public class GridRenderer implements GLSurfaceView.Renderer {
     @Override
     public void onSurfaceCreated(GL10 glUnused, EGLConfig config) {
         // Set the background clear color to black.
-        GLES20.glClearColor(0.56f, 0.92f, 0.75f, 0.0f);
+        gl.glClearColor(0.56f, 0.92f, 0.75f, 0.0f);
 
         // Use culling to remove back faces.
-        GLES20.glEnable(GLES20.GL_CULL_FACE);
+        gl.glEnable(GLCommands.GL_CULL_FACE);
 
         // Enable depth testing
-        GLES20.glEnable(GLES20.GL_DEPTH_TEST);
+        gl.glEnable(GLCommands.GL_DEPTH_TEST);
 
         // Position the eye in front of the origin.
         final float eyeX = 0.0f;
@@ -199,12 +162,17 @@ public class GridRenderer implements GLSurfaceView.Renderer {
 
         mPerVertexProgramHandle = ShaderHelper.createAndLinkProgram(vertexShaderHandle, fragmentShaderHandle,
                 new String[]{"a_Position", "a_Color"});
+
+        // Locations stay valid as long as the program, so they are not queried every frame.
+        mMVPMatrixHandle = gl.glGetUniformLocation(mPerVertexProgramHandle, "u_MVPMatrix");
+        mPositionHandle = gl.glGetAttribLocation(mPerVertexProgramHandle, "a_Position");
+        mColorHandle = gl.glGetAttribLocation(mPerVertexProgramHandle, "a_Color");
     }
 
     @Override
     public void onSurfaceChanged(GL10 glUnused, int width, int height) {
         // Set the OpenGL viewport to the same size as the surface.
-        GLES20.glViewport(0, 0, width, height);
+        gl.glViewport(0, 0, width, height);
 
         // Create a new perspective projection matrix. The height will stay the same
         // while the width will vary as per aspect ratio.
@@ -217,87 +185,37 @@ public class GridRenderer implements GLSurfaceView.Renderer {
         final float far = 30;
 
         Matrix.frustumM(mProjectionMatrix, 0, left, right, bottom, top, near, far);
+
+        // The camera does not move, so only the model matrix has to be applied every frame.
+        Matrix.multiplyMM(mViewProjectionMatrix, 0, mProjectionMatrix, 0, mViewMatrix, 0);
     }
 
     @Override
     public void onDrawFrame(GL10 glUnused) {
-        GLES20.glClear(GLES20.GL_COLOR_BUFFER_BIT | GLES20.GL_DEPTH_BUFFER_BIT);
+        gl.glClear(GLCommands.GL_COLOR_BUFFER_BIT | GLCommands.GL_DEPTH_BUFFER_BIT);
 
         // Do a complete rotation every 10 seconds.
         long time = SystemClock.uptimeMillis() % 10000L;
         float angleInDegrees = (360.0f / 10000.0f) * ((int) time);
 
-        // Set our per-vertex lighting program.
-        GLES20.glUseProgram(mPerVertexProgramHandle);
-
-        // Set program handles for cube drawing.
-        mMVPMatrixHandle = GLES20.glGetUniformLocation(mPerVertexProgramHandle, "u_MVPMatrix");
-        mMVMatrixHandle = GLES20.glGetUniformLocation(mPerVertexProgramHandle, "u_MVMatrix");
-        mLightPosHandle = GLES20.glGetUniformLocation(mPerVertexProgramHandle, "u_LightPos");
-        mPositionHandle = GLES20.glGetAttribLocation(mPerVertexProgramHandle, "a_Position");
-        mColorHandle = GLES20.glGetAttribLocation(mPerVertexProgramHandle, "a_Color");
-
-        // Calculate position of the light. Rotate and then push into the distance.
-        Matrix.setIdentityM(mLightModelMatrix, 0);
-        Matrix.translateM(mLightModelMatrix, 0, 0.0f, 0.0f, -5.0f);
-        Matrix.rotateM(mLightModelMatrix, 0, angleInDegrees, 0.0f, 1.0f, 0.0f);
-        Matrix.translateM(mLightModelMatrix, 0, 0.0f, 0.0f, 2.0f);
-
-        Matrix.multiplyMV(mLightPosInWorldSpace, 0, mLightModelMatrix, 0, mLightPosInModelSpace, 0);
-        Matrix.multiplyMV(mLightPosInEyeSpace, 0, mViewMatrix, 0, mLightPosInWorldSpace, 0);
-
-        for (int i = 0; i < polygons.length; i++) {
-            Matrix.setIdentityM(mModelMatrix, 0);
-            Matrix.translateM(mModelMatrix, 0, 0, 5, -20);
-            Matrix.rotateM(mModelMatrix, 0, angleInDegrees, 0.0f, 1.0f, 0.0f);
-            Matrix.translateM(mModelMatrix, 0, -5, 0, polygons.length / 2 - i);
-            drawPolygone(polygons[i]);
-        }
-    }
-
-    private void drawPolygone(OpenGLPolygon polygon) {
-
-        // This multiplies the view matrix by the model matrix, and stores the result in the MVP matrix
-        // (which currently contains model * view).
-        Matrix.multiplyMM(mMVPMatrix, 0, mViewMatrix, 0, mModelMatrix, 0);
+        // Set our per-vertex color program.
+        gl.glUseProgram(mPerVertexProgramHandle);
 
-        // Pass in the modelview matrix.
-        GLES20.glUniformMatrix4fv(mMVMatrixHandle, 1, false, mMVPMatrix, 0);
+        // All polygons share the model matrix, their own translation is baked into the mesh.
+        // Work done here is the same for any number of polygons.
+        Matrix.setIdentityM(mModelMatrix, 0);
+        Matrix.translateM(mModelMatrix, 0, 0, 5, -20);
+        Matrix.rotateM(mModelMatrix, 0, angleInDegrees, 0.0f, 1.0f, 0.0f);
 
-        // This multiplies the modelview matrix by the projection matrix, and stores the result in the MVP matrix
-        // (which now contains model * view * projection).
-        Matrix.multiplyMM(mMVPMatrix, 0, mProjectionMatrix, 0, mMVPMatrix, 0);
+        // This multiplies the cached view projection matrix by the model matrix, and stores the result in the
+        // MVP matrix (which now contains model * view * projection).
+        Matrix.multiplyMM(mMVPMatrix, 0, mViewProjectionMatrix, 0, mModelMatrix, 0);
 
         // Pass in the combined matrix.
-        GLES20.glUniformMatrix4fv(mMVPMatrixHandle, 1, false, mMVPMatrix, 0);
-
-        // Pass in the light position in eye space.
-        GLES20.glUniform3f(mLightPosHandle, mLightPosInEyeSpace[0], mLightPosInEyeSpace[1], mLightPosInEyeSpace[2]);
-
-        polygon.triangles(mPositionHandle, mColorHandle);
-
-
-        // This multiplies the view matrix by the model matrix, and stores the result in the MVP matrix
-        // (which currently contains model * view).
-        Matrix.multiplyMM(mMVPMatrix, 0, mViewMatrix, 0, mModelMatrix, 0);
-
-        // Pass in the modelview matrix.
-        GLES20.glUniformMatrix4fv(mMVMatrixHandle, 1, false, mMVPMatrix, 0);
-
-        // This multiplies the modelview matrix by the projection matrix, and stores the result in the MVP matrix
-        // (which now contains model * view * projection).
-        Matrix.multiplyMM(mMVPMatrix, 0, mProjectionMatrix, 0, mMVPMatrix, 0);
-
-        // Pass in the combined matrix.
-        GLES20.glUniformMatrix4fv(mMVPMatrixHandle, 1, false, mMVPMatrix, 0);
-
-        // Pass in the color information
-        sharedBorderColorBuffer.position(0);
-        GLES20.glVertexAttribPointer(mColorHandle, mColorDataSize, GLES20.GL_FLOAT, false,
-                0, sharedBorderColorBuffer);
-
-        GLES20.glEnableVertexAttribArray(mColorHandle);
+        gl.glUniformMatrix4fv(mMVPMatrixHandle, 1, false, mMVPMatrix, 0);
 
-        polygon.border(mPositionHandle);
+        for (OpenGLMesh mesh = preparation.poll(); mesh != null; mesh = preparation.poll())
+            scene.add(mesh);
+        scene.draw(gl, mPositionHandle, mColorHandle);
     }
-}
\ No newline at end of file
+}
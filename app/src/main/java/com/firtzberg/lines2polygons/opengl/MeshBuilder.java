@@ -0,0 +1,325 @@
+package com.firtzberg.lines2polygons.opengl;
+
+import com.firtzberg.lines2polygons.elements.Border;
+
+import java.nio.ByteOrder;
+import java.util.Arrays;
+
+/**
+ * Packs the triangles and borders of many polygons into an indexed mesh which is drawn with few calls.
+ * Every border point is stored once and referenced by triangle indices and line indices.
+ * Polygon translation and color are baked into the vertices, so all polygons share one model matrix.
+ * <p>A vertex takes {@link #BYTES_PER_VERTEX} bytes, three floats of position followed by a color of four normalised
+ * unsigned bytes. Vertices are kept as ints, positions as raw float bits, so they can be copied to a native order
+ * buffer without converting values.</p>
+ * <p>Indices are unsigned shorts as supported by every OpenGL ES 2.0 device, so the mesh is split into batches of
+ * at most {@link #MAX_BATCH_VERTEX_COUNT} vertices. A polygon starts a new batch if it does not fit into the current one.
+ * Only polygons larger than a whole batch are split, repeating the points shared by both batches.</p>
+ * <p>The borders of all polygons form one list of line segments per batch, drawn with a single {@code GL_LINES} call.
+ * Edges shared by neighbouring polygons are kept twice, since polygons are stacked at different depths
+ * and each copy outlines its own polygon.</p>
+ * <p>Has no Android dependencies so it can be used and checked on a plain JVM.</p>
+ */
+public class MeshBuilder {
+    /**
+     * Number of floats per vertex position.
+     */
+    public static final int FLOATS_PER_POSITION = 3;
+    /**
+     * Number of unsigned byte components per color.
+     */
+    public static final int BYTES_PER_COLOR = 4;
+    /**
+     * Number of ints per vertex, one for each position coordinate and one for the packed color.
+     */
+    public static final int INTS_PER_VERTEX = FLOATS_PER_POSITION + 1;
+    /**
+     * Number of bytes per vertex.
+     */
+    public static final int BYTES_PER_VERTEX = 4 * INTS_PER_VERTEX;
+    /**
+     * Position of the color within the ints of a vertex.
+     */
+    public static final int COLOR_OFFSET = FLOATS_PER_POSITION;
+    /**
+     * Number of vertices addressable by unsigned short indices.
+     */
+    public static final int MAX_BATCH_VERTEX_COUNT = 65536;
+    /**
+     * Interleaved positions and colors of vertices.
+     */
+    private int[] vertices = new int[64 * INTS_PER_VERTEX];
+    private int vertexCount;
+    /**
+     * Triples of triangle vertex indices relative to the first vertex of their batch.
+     */
+    private short[] triangleIndices = new short[64];
+    private int triangleIndexCount;
+    /**
+     * Pairs of line vertex indices relative to the first vertex of their batch.
+     */
+    private short[] lineIndices = new short[64];
+    private int lineIndexCount;
+    /**
+     * First vertex, triangle index and line index of each batch.
+     */
+    private int[] batchVertexOffsets = new int[4], batchTriangleIndexOffsets = new int[4], batchLineIndexOffsets = new int[4];
+    private int batchCount;
+    /**
+     * Batch in which each point of the current polygon was stored, -1 if it was not stored yet,
+     * and the index of its vertex within that batch.
+     */
+    private int[] pointBatches = new int[0], pointVertices = new int[0];
+
+    /**
+     * Adds the triangles and border segments of a polygon.
+     * Border y coordinates grow downwards like on screen and are flipped, keeping the winding of the triangles.
+     *
+     * @param border        Border of the polygon.
+     * @param vertexIndices Array containing triples of border point indices in clockwise order.
+     * @param indexOffset   Position of the first index of the polygon in vertexIndices.
+     * @param triangleCount Number of triangles of the polygon.
+     * @param x             Translation added to x coordinates.
+     * @param y             Translation added to flipped y coordinates.
+     * @param z             Depth of the polygon.
+     * @param r             Red from 0 to 1.
+     * @param g             Green from 0 to 1.
+     * @param b             Blue from 0 to 1.
+     */
+    public void addPolygon(Border border, int[] vertexIndices, int indexOffset, int triangleCount,
+                           float x, float y, float z, float r, float g, float b) {
+        int pointCount = border.getPointCount();
+        if (batchCount == 0 || pointCount <= MAX_BATCH_VERTEX_COUNT
+                && vertexCount - batchVertexOffsets[batchCount - 1] + pointCount > MAX_BATCH_VERTEX_COUNT)
+            startBatch();
+        // Only polygons larger than a whole batch need room checks, reserving for every vertex as if it were new.
+        boolean split = vertexCount - batchVertexOffsets[batchCount - 1] + pointCount > MAX_BATCH_VERTEX_COUNT;
+        if (pointBatches.length < pointCount) {
+            pointBatches = new int[pointCount];
+            pointVertices = new int[pointCount];
+        }
+        Arrays.fill(pointBatches, 0, pointCount, -1);
+        float[] coordinates = border.getCoordinates();
+        int color = packColor(r, g, b, 1.0f);
+
+        int indexCount = 3 * triangleCount;
+        ensureTriangleIndexCapacity(triangleIndexCount + indexCount);
+        // Flipping y reverses the winding, so the last two vertices of each triangle are swapped to keep it.
+        for (int i = indexOffset, n = indexOffset + indexCount; i < n; i += 3) {
+            if (split)
+                reserveVertices(3);
+            triangleIndices[triangleIndexCount++] = vertexOf(vertexIndices[i], coordinates, x, y, z, color);
+            triangleIndices[triangleIndexCount++] = vertexOf(vertexIndices[i + 2], coordinates, x, y, z, color);
+            triangleIndices[triangleIndexCount++] = vertexOf(vertexIndices[i + 1], coordinates, x, y, z, color);
+        }
+
+        ensureLineIndexCapacity(lineIndexCount + 2 * pointCount);
+        for (int i = 0; i < pointCount; i++) {
+            if (split)
+                reserveVertices(2);
+            lineIndices[lineIndexCount++] = vertexOf(i, coordinates, x, y, z, color);
+            lineIndices[lineIndexCount++] = vertexOf(i + 1 == pointCount ? 0 : i + 1, coordinates, x, y, z, color);
+        }
+    }
+
+    /**
+     * Packs a color into an int whose bytes are red, green, blue and alpha in memory when written in native byte order.
+     *
+     * @param r Red from 0 to 1.
+     * @param g Green from 0 to 1.
+     * @param b Blue from 0 to 1.
+     * @param a Alpha from 0 to 1.
+     * @return Packed color.
+     */
+    public static int packColor(float r, float g, float b, float a) {
+        int red = Math.round(Math.max(0, Math.min(1, r)) * 255);
+        int green = Math.round(Math.max(0, Math.min(1, g)) * 255);
+        int blue = Math.round(Math.max(0, Math.min(1, b)) * 255);
+        int alpha = Math.round(Math.max(0, Math.min(1, a)) * 255);
+        if (ByteOrder.nativeOrder() == ByteOrder.LITTLE_ENDIAN)
+            return red | green << 8 | blue << 16 | alpha << 24;
+        return red << 24 | green << 16 | blue << 8 | alpha;
+    }
+
+    /**
+     * Starts a new batch if the current one has no room for the given number of new vertices.
+     */
+    private void reserveVertices(int count) {
+        if (vertexCount - batchVertexOffsets[batchCount - 1] + count > MAX_BATCH_VERTEX_COUNT)
+            startBatch();
+    }
+
+    private void startBatch() {
+        if (batchVertexOffsets.length == batchCount) {
+            batchVertexOffsets = Arrays.copyOf(batchVertexOffsets, 2 * batchCount);
+            batchTriangleIndexOffsets = Arrays.copyOf(batchTriangleIndexOffsets, 2 * batchCount);
+            batchLineIndexOffsets = Arrays.copyOf(batchLineIndexOffsets, 2 * batchCount);
+        }
+        batchVertexOffsets[batchCount] = vertexCount;
+        batchTriangleIndexOffsets[batchCount] = triangleIndexCount;
+        batchLineIndexOffsets[batchCount] = lineIndexCount;
+        batchCount++;
+    }
+
+    /**
+     * Gets the vertex of a point in the current batch, storing the point if it is not in the batch yet.
+     *
+     * @return Index of the vertex relative to the first vertex of the batch.
+     */
+    private short vertexOf(int point, float[] coordinates, float x, float y, float z, int color) {
+        int batch = batchCount - 1;
+        if (pointBatches[point] != batch) {
+            if (vertices.length < (vertexCount + 1) * INTS_PER_VERTEX)
+                vertices = Arrays.copyOf(vertices, 2 * vertices.length);
+            int[] vertices = this.vertices;
+            int position = vertexCount * INTS_PER_VERTEX;
+            vertices[position++] = Float.floatToRawIntBits(x + coordinates[2 * point]);
+            vertices[position++] = Float.floatToRawIntBits(y - coordinates[2 * point + 1]);
+            vertices[position++] = Float.floatToRawIntBits(z);
+            vertices[position] = color;
+            pointBatches[point] = batch;
+            pointVertices[point] = vertexCount - batchVertexOffsets[batch];
+            vertexCount++;
+        }
+        // Values above Short.MAX_VALUE wrap to negative shorts, which is their unsigned short representation.
+        return (short) pointVertices[point];
+    }
+
+    private void ensureTriangleIndexCapacity(int indexCount) {
+        if (triangleIndices.length < indexCount)
+            triangleIndices = Arrays.copyOf(triangleIndices, Math.max(indexCount, 2 * triangleIndices.length));
+    }
+
+    private void ensureLineIndexCapacity(int indexCount) {
+        if (lineIndices.length < indexCount)
+            lineIndices = Arrays.copyOf(lineIndices, Math.max(indexCount, 2 * lineIndices.length));
+    }
+
+    /**
+     * Removes all polygons keeping the allocated arrays.
+     */
+    public void clear() {
+        vertexCount = 0;
+        triangleIndexCount = 0;
+        lineIndexCount = 0;
+        batchCount = 0;
+    }
+
+    /**
+     * Gets the interleaved vertices, {@link #INTS_PER_VERTEX} ints each.
+     * <p>Do not edit the array. Only the values of the first {@link #getVertexCount()} vertices are valid.</p>
+     *
+     * @return Backing array of vertices.
+     */
+    public int[] getVertices() {
+        return vertices;
+    }
+
+    /**
+     * Gets the number of vertices in all batches.
+     *
+     * @return Number of vertices.
+     */
+    public int getVertexCount() {
+        return vertexCount;
+    }
+
+    /**
+     * Gets the triangle indices of all batches as unsigned shorts.
+     * <p>Do not edit the array. Only the first {@link #getTriangleIndexCount()} values are valid.</p>
+     *
+     * @return Backing array of triangle indices.
+     */
+    public short[] getTriangleIndices() {
+        return triangleIndices;
+    }
+
+    /**
+     * Gets the number of triangle indices in all batches, three per triangle.
+     *
+     * @return Number of triangle indices.
+     */
+    public int getTriangleIndexCount() {
+        return triangleIndexCount;
+    }
+
+    /**
+     * Gets the line indices of all batches as unsigned shorts.
+     * <p>Do not edit the array. Only the first {@link #getLineIndexCount()} values are valid.</p>
+     *
+     * @return Backing array of line indices.
+     */
+    public short[] getLineIndices() {
+        return lineIndices;
+    }
+
+    /**
+     * Gets the number of line indices in all batches, two per border segment.
+     *
+     * @return Number of line indices.
+     */
+    public int getLineIndexCount() {
+        return lineIndexCount;
+    }
+
+    /**
+     * Gets the number of batches, each drawn with its own calls.
+     *
+     * @return Number of batches.
+     */
+    public int getBatchCount() {
+        return batchCount;
+    }
+
+    /**
+     * Gets the first vertex of a batch. Indices of the batch are relative to it.
+     *
+     * @param batch Index of the batch.
+     * @return Offset of the first vertex.
+     */
+    public int getBatchVertexOffset(int batch) {
+        return batchVertexOffsets[batch];
+    }
+
+    /**
+     * Gets the first triangle index of a batch.
+     *
+     * @param batch Index of the batch.
+     * @return Offset in the triangle indices.
+     */
+    public int getBatchTriangleIndexOffset(int batch) {
+        return batchTriangleIndexOffsets[batch];
+    }
+
+    /**
+     * Gets the number of triangle indices of a batch.
+     *
+     * @param batch Index of the batch.
+     * @return Number of triangle indices.
+     */
+    public int getBatchTriangleIndexCount(int batch) {
+        return (batch + 1 < batchCount ? batchTriangleIndexOffsets[batch + 1] : triangleIndexCount)
+                - batchTriangleIndexOffsets[batch];
+    }
+
+    /**
+     * Gets the first line index of a batch.
+     *
+     * @param batch Index of the batch.
+     * @return Offset in the line indices.
+     */
+    public int getBatchLineIndexOffset(int batch) {
+        return batchLineIndexOffsets[batch];
+    }
+
+    /**
+     * Gets the number of line indices of a batch.
+     *
+     * @param batch Index of the batch.
+     * @return Number of line indices.
+     */
+    public int getBatchLineIndexCount(int batch) {
+        return (batch + 1 < batchCount ? batchLineIndexOffsets[batch + 1] : lineIndexCount)
+                - batchLineIndexOffsets[batch];
+    }
+}
@@ -0,0 +1,171 @@
+package com.firtzberg.lines2polygons.opengl;
+
+import com.firtzberg.lines2polygons.conversion.BatchTriangulation;
+import com.firtzberg.lines2polygons.conversion.Polygonisation;
+import com.firtzberg.lines2polygons.conversion.TriangulationCache;
+import com.firtzberg.lines2polygons.elements.Grid;
+import com.firtzberg.lines2polygons.elements.Polygon;
+import com.firtzberg.lines2polygons.profiling.GeometryTrace;
+import com.firtzberg.lines2polygons.profiling.Tracing;
+
+import java.util.List;
+import java.util.Queue;
+import java.util.Random;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadFactory;
+
+/**
+ * Converts a grid into meshes on a worker thread.
+ * Polygons are triangulated and packed in chunks, every finished chunk is offered to a lock-free queue
+ * from which the GL thread takes it, so the scene is drawn progressively while the rest is prepared.
+ */
+public class MeshPreparation implements Runnable {
+    /**
+     * Chunks are finished once their polygons have at least this many border points.
+     */
+    public static final int CHUNK_POINT_COUNT = 16384;
+    /**
+     * Creates triangulation workers which, like the preparation thread, neither keep the process alive
+     * nor compete with the GL and UI threads.
+     */
+    private static final ThreadFactory WORKER_FACTORY = new ThreadFactory() {
+        @Override
+        public Thread newThread(Runnable runnable) {
+            Thread thread = new Thread(runnable, "MeshPreparation worker");
+            thread.setDaemon(true);
+            thread.setPriority(Thread.MIN_PRIORITY);
+            return thread;
+        }
+    };
+    /**
+     * Snapshot of the grid to be converted.
+     */
+    private final Grid grid;
+    /**
+     * Cache of triangulated borders or null.
+     */
+    private final TriangulationCache cache;
+    /**
+     * Pool of the mesh buffers.
+     */
+    private final DirectBufferPool pool;
+    /**
+     * Finished meshes not yet taken by the GL thread.
+     */
+    private final Queue<OpenGLMesh> prepared = new ConcurrentLinkedQueue<>();
+    private volatile boolean cancelled;
+
+    /**
+     * Creates a preparation of the grid. Nothing is done until it is run.
+     *
+     * @param grid  Grid to be converted. A snapshot is taken, so the grid may be edited meanwhile.
+     * @param cache Cache of triangulated borders or null.
+     * @param pool  Pool from which mesh buffers are borrowed.
+     */
+    public MeshPreparation(Grid grid, TriangulationCache cache, DirectBufferPool pool) {
+        this.grid = grid.snapshot();
+        this.cache = cache;
+        this.pool = pool;
+    }
+
+    /**
+     * Starts the preparation on a new background thread.
+     */
+    public void start() {
+        Thread thread = new Thread(this, "MeshPreparation");
+        thread.setDaemon(true);
+        thread.setPriority(Thread.MIN_PRIORITY);
+        thread.start();
+    }
+
+    @Override
+    public void run() {
+        List<Polygon> areas = Polygonisation.gridToPolygons(grid);
+        // Polygonisation can not be interrupted, so a cancellation meanwhile is noticed only now.
+        if (cancelled)
+            return;
+        int workerCount = Math.max(1, Runtime.getRuntime().availableProcessors());
+        ExecutorService executor = Executors.newFixedThreadPool(workerCount, WORKER_FACTORY);
+        try {
+            MeshBuilder mesh = new MeshBuilder();
+            Random random = new Random();
+            int chunkStart = 0;
+            int chunkPointCount = 0;
+            for (int i = 0; i < areas.size() && !cancelled; i++) {
+                chunkPointCount += areas.get(i).getBorder().getPointCount();
+                if (chunkPointCount >= CHUNK_POINT_COUNT || i + 1 == areas.size()) {
+                    prepareChunk(areas, chunkStart, i + 1, chunkPointCount, executor, workerCount, mesh, random);
+                    chunkStart = i + 1;
+                    chunkPointCount = 0;
+                }
+            }
+        } finally {
+            executor.shutdown();
+        }
+        if (Tracing.ENABLED && Tracing.isActive() && cache != null)
+            Tracing.trace("MeshPreparation", "Triangulation cache hits, misses, evictions", cache.getHitCount(),
+                    cache.getMissCount(), cache.getEvictionCount());
+    }
+
+    /**
+     * Triangulates and packs polygons from start to end and offers the mesh to the GL thread.
+     */
+    private void prepareChunk(List<Polygon> areas, int start, int end, int pointCount, ExecutorService executor,
+                              int workerCount, MeshBuilder mesh, Random random) {
+        List<Polygon> chunk = areas.subList(start, end);
+        // Traced here since the triangulation and mesh builder are kept free of Android dependencies.
+        BatchTriangulation triangulation;
+        GeometryTrace.begin(GeometryTrace.Section.TRIANGULATION, pointCount);
+        try {
+            triangulation = BatchTriangulation.triangulate(chunk, executor, Math.min(workerCount, chunk.size()),
+                    cache);
+        } finally {
+            GeometryTrace.end();
+        }
+
+        GeometryTrace.begin(GeometryTrace.Section.BUFFER_BUILDING, pointCount);
+        try {
+            // Polygons are moved left and stacked in depth around the center of rotation.
+            mesh.clear();
+            int[] vertexIndices = triangulation.getIndices();
+            for (int i = 0; i < chunk.size(); i++) {
+                mesh.addPolygon(chunk.get(i).getBorder(), vertexIndices, triangulation.getIndexOffset(i),
+                        triangulation.getTriangleCount(i), -5, 0, areas.size() / 2 - (start + i),
+                        random.nextFloat(), random.nextFloat(), random.nextFloat());
+            }
+            prepared.offer(new OpenGLMesh(mesh, pool));
+        } finally {
+            GeometryTrace.end();
+        }
+        // A mesh offered while cancelling would never be taken, so its buffers are given back here.
+        if (cancelled)
+            releasePrepared();
+    }
+
+    /**
+     * Takes the next finished mesh.
+     *
+     * @return Mesh ready to be drawn or null if none is ready at the moment.
+     */
+    public OpenGLMesh poll() {
+        return prepared.poll();
+    }
+
+    /**
+     * Stops the preparation after the current chunk and gives back buffers of meshes not taken yet.
+     */
+    public void cancel() {
+        cancelled = true;
+        releasePrepared();
+    }
+
+    /**
+     * Gives back buffers of meshes not taken by the GL thread.
+     */
+    private void releasePrepared() {
+        for (OpenGLMesh mesh = prepared.poll(); mesh != null; mesh = prepared.poll())
+            mesh.release();
+    }
+}
@@ -0,0 +1,63 @@
+package com.firtzberg.lines2polygons.opengl;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Meshes drawn together every frame, filled triangles first and borders on top of them.
+ * Holds only the draw calls of a frame, matrices and program are set by the renderer.
+ */
+public class MeshScene {
+    /**
+     * Meshes in the order they were added.
+     */
+    private final List<OpenGLMesh> meshes = new ArrayList<>();
+
+    /**
+     * Adds a mesh to be drawn from the next frame on.
+     *
+     * @param mesh Mesh to be drawn.
+     */
+    public void add(OpenGLMesh mesh) {
+        meshes.add(mesh);
+    }
+
+    /**
+     * Gets the number of meshes.
+     *
+     * @return Number of meshes.
+     */
+    public int getMeshCount() {
+        return meshes.size();
+    }
+
+    /**
+     * Gives the buffers of all meshes back to their pool and removes the meshes.
+     */
+    public void release() {
+        for (int i = 0; i < meshes.size(); i++)
+            meshes.get(i).release();
+        meshes.clear();
+    }
+
+    /**
+     * Draws all meshes. Borders are drawn black.
+     * Leaves the position array enabled and the color array disabled.
+     *
+     * @param gl             Commands of the current context.
+     * @param positionHandle Handle to position attribute.
+     * @param colorHandle    Handle to color attribute.
+     */
+    public void draw(GLCommands gl, int positionHandle, int colorHandle) {
+        gl.glEnableVertexAttribArray(positionHandle);
+        gl.glEnableVertexAttribArray(colorHandle);
+        for (int i = 0; i < meshes.size(); i++)
+            meshes.get(i).triangles(gl, positionHandle, colorHandle);
+
+        // A disabled attribute array takes the constant value for every vertex.
+        gl.glDisableVertexAttribArray(colorHandle);
+        gl.glVertexAttrib4f(colorHandle, 0.0f, 0.0f, 0.0f, 1.0f);
+        for (int i = 0; i < meshes.size(); i++)
+            meshes.get(i).borders(gl, positionHandle);
+    }
+}
@@ -0,0 +1,147 @@
+package com.firtzberg.lines2polygons.opengl;
+
+import java.nio.ByteBuffer;
+import java.nio.IntBuffer;
+import java.nio.ShortBuffer;
+
+/**
+ * Container of all data needed to draw the mesh of a group of polygons in OpenGL ES.
+ * Buffers are built from a {@link MeshBuilder} on any thread and only read when drawing.
+ * They are borrowed from a {@link DirectBufferPool} and given back by {@link #release()}.
+ * Drawing goes through {@link GLCommands}, so the class has no Android dependencies.
+ */
+public class OpenGLMesh {
+    /**
+     * Number of bytes per int.
+     */
+    public static final int BYTES_PER_INT = 4;
+    /**
+     * Number of bytes per short.
+     */
+    public static final int BYTES_PER_SHORT = 2;
+    /**
+     * Number of ints describing a batch in {@link #batches}.
+     */
+    private static final int INTS_PER_BATCH = 5;
+    /**
+     * Pool of the buffers.
+     */
+    private final DirectBufferPool pool;
+    /**
+     * Pooled buffers backing the vertex, triangle index and line index buffers.
+     */
+    private final ByteBuffer vertexBytes, triangleIndexBytes, lineIndexBytes;
+    /**
+     * Interleaved positions and packed colors of the border points.
+     */
+    final IntBuffer vertexBuffer;
+    /**
+     * Triangle indices of all batches.
+     */
+    final ShortBuffer triangleIndexBuffer;
+    /**
+     * Border segment indices of all batches.
+     */
+    final ShortBuffer lineIndexBuffer;
+    /**
+     * For each batch its first vertex, triangle index offset and count and line index offset and count.
+     */
+    final int[] batches;
+    private boolean released;
+
+    /**
+     * Copies the mesh to direct buffers.
+     *
+     * @param mesh Mesh from which buffers will be prepared.
+     * @param pool Pool from which the buffers are borrowed.
+     */
+    public OpenGLMesh(MeshBuilder mesh, DirectBufferPool pool) {
+        this.pool = pool;
+        vertexBytes = pool.acquire(mesh.getVertexCount() * MeshBuilder.BYTES_PER_VERTEX);
+        vertexBuffer = vertexBytes.asIntBuffer();
+        vertexBuffer.put(mesh.getVertices(), 0, mesh.getVertexCount() * MeshBuilder.INTS_PER_VERTEX);
+        vertexBuffer.position(0);
+        triangleIndexBytes = pool.acquire(mesh.getTriangleIndexCount() * BYTES_PER_SHORT);
+        triangleIndexBuffer = toBuffer(triangleIndexBytes, mesh.getTriangleIndices(), mesh.getTriangleIndexCount());
+        lineIndexBytes = pool.acquire(mesh.getLineIndexCount() * BYTES_PER_SHORT);
+        lineIndexBuffer = toBuffer(lineIndexBytes, mesh.getLineIndices(), mesh.getLineIndexCount());
+        batches = new int[mesh.getBatchCount() * INTS_PER_BATCH];
+        for (int batch = 0, i = 0; batch < mesh.getBatchCount(); batch++) {
+            batches[i++] = mesh.getBatchVertexOffset(batch);
+            batches[i++] = mesh.getBatchTriangleIndexOffset(batch);
+            batches[i++] = mesh.getBatchTriangleIndexCount(batch);
+            batches[i++] = mesh.getBatchLineIndexOffset(batch);
+            batches[i++] = mesh.getBatchLineIndexCount(batch);
+        }
+    }
+
+    /**
+     * Copies indices to a direct buffer.
+     *
+     * @param bytes  Buffer in native order with room for the indices.
+     * @param values Source array.
+     * @param count  Number of values copied from the start of the array.
+     * @return Short view of bytes positioned at 0.
+     */
+    private static ShortBuffer toBuffer(ByteBuffer bytes, short[] values, int count) {
+        ShortBuffer buffer = bytes.asShortBuffer();
+        buffer.put(values, 0, count);
+        buffer.position(0);
+        return buffer;
+    }
+
+    /**
+     * Gives the buffers back to the pool. The mesh must not be drawn afterwards. Calling it again has no effect.
+     */
+    public void release() {
+        if (released)
+            return;
+        released = true;
+        pool.release(vertexBytes);
+        pool.release(triangleIndexBytes);
+        pool.release(lineIndexBytes);
+    }
+
+    /**
+     * Draws the triangles with their colors, one call per batch.
+     * Position and color attribute arrays must be enabled.
+     *
+     * @param gl             Commands of the current context.
+     * @param positionHandle Handle to position attribute.
+     * @param colorHandle    Handle to color attribute.
+     */
+    public void triangles(final GLCommands gl, final int positionHandle, final int colorHandle) {
+        for (int i = 0; i < batches.length; i += INTS_PER_BATCH) {
+            int vertexOffset = batches[i] * MeshBuilder.INTS_PER_VERTEX;
+            vertexBuffer.position(vertexOffset);
+            gl.glVertexAttribPointer(positionHandle, MeshBuilder.FLOATS_PER_POSITION, GLCommands.GL_FLOAT, false,
+                    MeshBuilder.BYTES_PER_VERTEX, vertexBuffer);
+            // Color bytes are normalised from 0-255 to 0-1 by OpenGL.
+            vertexBuffer.position(vertexOffset + MeshBuilder.COLOR_OFFSET);
+            gl.glVertexAttribPointer(colorHandle, MeshBuilder.BYTES_PER_COLOR, GLCommands.GL_UNSIGNED_BYTE, true,
+                    MeshBuilder.BYTES_PER_VERTEX, vertexBuffer);
+
+            triangleIndexBuffer.position(batches[i + 1]);
+            gl.glDrawElements(GLCommands.GL_TRIANGLES, batches[i + 2], GLCommands.GL_UNSIGNED_SHORT,
+                    triangleIndexBuffer);
+        }
+    }
+
+    /**
+     * Draws the borders, one call per batch. The color has to be set by the renderer.
+     * The position attribute array must be enabled.
+     *
+     * @param gl             Commands of the current context.
+     * @param positionHandle Handle to position attribute.
+     */
+    public void borders(final GLCommands gl, final int positionHandle) {
+        for (int i = 0; i < batches.length; i += INTS_PER_BATCH) {
+            vertexBuffer.position(batches[i] * MeshBuilder.INTS_PER_VERTEX);
+            gl.glVertexAttribPointer(positionHandle, MeshBuilder.FLOATS_PER_POSITION, GLCommands.GL_FLOAT, false,
+                    MeshBuilder.BYTES_PER_VERTEX, vertexBuffer);
+
+            lineIndexBuffer.position(batches[i + 3]);
+            gl.glDrawElements(GLCommands.GL_LINES, batches[i + 4], GLCommands.GL_UNSIGNED_SHORT, lineIndexBuffer);
+        }
+    }
+}
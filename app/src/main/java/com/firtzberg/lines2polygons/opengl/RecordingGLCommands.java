@@ -0,0 +1,264 @@
+package com.firtzberg.lines2polygons.opengl;
+
+import java.nio.Buffer;
+import java.nio.ByteBuffer;
+import java.nio.IntBuffer;
+import java.nio.ShortBuffer;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Counts commands instead of drawing, for measuring frames on a plain JVM.
+ * Tracks the state set by the commands and counts state changes which do not change anything as redundant.
+ * Submitted bytes estimate what a driver copies for client side arrays: the indices of each draw and,
+ * for every enabled attribute array, the vertices up to the highest drawn index.
+ * <p>Statistics cover the commands since the last {@link #reset()}, the tracked state is kept.</p>
+ */
+public class RecordingGLCommands implements GLCommands {
+    /**
+     * Number of attribute indices tracked.
+     */
+    private static final int MAX_VERTEX_ATTRIBS = 16;
+    /**
+     * Locations given out for uniform and attribute names.
+     */
+    private final Map<String, Integer> uniformLocations = new HashMap<>(), attribLocations = new HashMap<>();
+    private final Set<Integer> enabledCaps = new HashSet<>();
+    private final boolean[] enabledArrays = new boolean[MAX_VERTEX_ATTRIBS];
+    /**
+     * Last pointer of every attribute: buffer, its position, size, type, normalisation and stride.
+     */
+    private final Buffer[] pointerBuffers = new Buffer[MAX_VERTEX_ATTRIBS];
+    private final int[][] pointerParameters = new int[MAX_VERTEX_ATTRIBS][5];
+    private final float[][] constantAttribs = new float[MAX_VERTEX_ATTRIBS][4];
+    private int program;
+
+    private long callCount;
+    private long drawCallCount;
+    private long stateChangeCount;
+    private long redundantStateChangeCount;
+    private long locationQueryCount;
+    private long submittedBytes;
+
+    /**
+     * Clears the statistics, for example at the start of a frame.
+     */
+    public void reset() {
+        callCount = 0;
+        drawCallCount = 0;
+        stateChangeCount = 0;
+        redundantStateChangeCount = 0;
+        locationQueryCount = 0;
+        submittedBytes = 0;
+    }
+
+    /**
+     * Counts a state change.
+     *
+     * @param redundant True if the state already had the new value.
+     */
+    private void stateChange(boolean redundant) {
+        callCount++;
+        stateChangeCount++;
+        if (redundant)
+            redundantStateChangeCount++;
+    }
+
+    @Override
+    public void glClear(int mask) {
+        callCount++;
+    }
+
+    @Override
+    public void glClearColor(float red, float green, float blue, float alpha) {
+        stateChange(false);
+    }
+
+    @Override
+    public void glEnable(int cap) {
+        stateChange(!enabledCaps.add(cap));
+    }
+
+    @Override
+    public void glViewport(int x, int y, int width, int height) {
+        stateChange(false);
+    }
+
+    @Override
+    public void glUseProgram(int program) {
+        stateChange(this.program == program);
+        this.program = program;
+    }
+
+    @Override
+    public int glGetUniformLocation(int program, String name) {
+        callCount++;
+        locationQueryCount++;
+        return locationOf(uniformLocations, name);
+    }
+
+    @Override
+    public int glGetAttribLocation(int program, String name) {
+        callCount++;
+        locationQueryCount++;
+        return locationOf(attribLocations, name);
+    }
+
+    private static int locationOf(Map<String, Integer> locations, String name) {
+        Integer location = locations.get(name);
+        if (location == null) {
+            location = locations.size();
+            locations.put(name, location);
+        }
+        return location;
+    }
+
+    @Override
+    public void glUniformMatrix4fv(int location, int count, boolean transpose, float[] value, int offset) {
+        stateChange(false);
+        submittedBytes += 64L * count;
+    }
+
+    @Override
+    public void glEnableVertexAttribArray(int index) {
+        stateChange(enabledArrays[index]);
+        enabledArrays[index] = true;
+    }
+
+    @Override
+    public void glDisableVertexAttribArray(int index) {
+        stateChange(!enabledArrays[index]);
+        enabledArrays[index] = false;
+    }
+
+    @Override
+    public void glVertexAttrib4f(int index, float x, float y, float z, float w) {
+        float[] constant = constantAttribs[index];
+        stateChange(constant[0] == x && constant[1] == y && constant[2] == z && constant[3] == w);
+        constant[0] = x;
+        constant[1] = y;
+        constant[2] = z;
+        constant[3] = w;
+    }
+
+    @Override
+    public void glVertexAttribPointer(int index, int size, int type, boolean normalized, int stride, Buffer pointer) {
+        int[] parameters = pointerParameters[index];
+        int normalisation = normalized ? 1 : 0;
+        stateChange(pointerBuffers[index] == pointer && parameters[0] == pointer.position() && parameters[1] == size
+                && parameters[2] == type && parameters[3] == normalisation && parameters[4] == stride);
+        pointerBuffers[index] = pointer;
+        parameters[0] = pointer.position();
+        parameters[1] = size;
+        parameters[2] = type;
+        parameters[3] = normalisation;
+        parameters[4] = stride;
+    }
+
+    @Override
+    public void glDrawElements(int mode, int count, int type, Buffer indices) {
+        callCount++;
+        drawCallCount++;
+        int maxIndex = -1;
+        int start = indices.position();
+        if (indices instanceof ShortBuffer) {
+            ShortBuffer shorts = (ShortBuffer) indices;
+            for (int i = start; i < start + count; i++)
+                maxIndex = Math.max(maxIndex, shorts.get(i) & 0xffff);
+            submittedBytes += 2L * count;
+        } else if (indices instanceof IntBuffer) {
+            IntBuffer ints = (IntBuffer) indices;
+            for (int i = start; i < start + count; i++)
+                maxIndex = Math.max(maxIndex, ints.get(i));
+            submittedBytes += 4L * count;
+        } else if (indices instanceof ByteBuffer) {
+            ByteBuffer bytes = (ByteBuffer) indices;
+            for (int i = start; i < start + count; i++)
+                maxIndex = Math.max(maxIndex, bytes.get(i) & 0xff);
+            submittedBytes += count;
+        }
+        for (int i = 0; i < MAX_VERTEX_ATTRIBS; i++) {
+            if (!enabledArrays[i] || pointerBuffers[i] == null)
+                continue;
+            int[] parameters = pointerParameters[i];
+            int stride = parameters[4] != 0 ? parameters[4] : parameters[1] * sizeOf(parameters[2]);
+            submittedBytes += (long) stride * (maxIndex + 1);
+        }
+    }
+
+    private static int sizeOf(int type) {
+        switch (type) {
+            case GL_UNSIGNED_BYTE:
+                return 1;
+            case GL_UNSIGNED_SHORT:
+                return 2;
+            default:
+                return 4;
+        }
+    }
+
+    /**
+     * Gets the number of commands.
+     *
+     * @return Number of commands.
+     */
+    public long getCallCount() {
+        return callCount;
+    }
+
+    /**
+     * Gets the number of draw commands.
+     *
+     * @return Number of draw calls.
+     */
+    public long getDrawCallCount() {
+        return drawCallCount;
+    }
+
+    /**
+     * Gets the number of commands changing state, including uniforms and attribute pointers.
+     *
+     * @return Number of state changes.
+     */
+    public long getStateChangeCount() {
+        return stateChangeCount;
+    }
+
+    /**
+     * Gets the number of state changes which set the value the state already had.
+     *
+     * @return Number of redundant state changes.
+     */
+    public long getRedundantStateChangeCount() {
+        return redundantStateChangeCount;
+    }
+
+    /**
+     * Gets the number of uniform and attribute location queries.
+     *
+     * @return Number of location queries.
+     */
+    public long getLocationQueryCount() {
+        return locationQueryCount;
+    }
+
+    /**
+     * Gets the estimated number of bytes submitted with uniforms, indices and client side vertex arrays.
+     *
+     * @return Number of submitted bytes.
+     */
+    public long getSubmittedBytes() {
+        return submittedBytes;
+    }
+
+    @Override
+    public String toString() {
+        return "RecordingGLCommands{calls=" + callCount + ", drawCalls=" + drawCallCount
+                + ", stateChanges=" + stateChangeCount + ", redundantStateChanges=" + redundantStateChangeCount
+                + ", locationQueries=" + locationQueryCount + ", submittedBytes=" + submittedBytes
+                + ", enabledArrays=" + Arrays.toString(enabledArrays) + '}';
+    }
+}
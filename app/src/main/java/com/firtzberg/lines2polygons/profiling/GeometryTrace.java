@@ -0,0 +1,93 @@
+package com.firtzberg.lines2polygons.profiling;
+
+import android.annotation.TargetApi;
+import android.os.Build;
+import android.os.Trace;
+
+/**
+ * Marks geometry processing phases in systrace recordings.
+ * The size of the processed input is attached to the section name rounded to a power of two,
+ * so sections can be told apart by input size without building strings at runtime.
+ * <p>Sections must be ended on the thread which began them, in reverse order.</p>
+ */
+public final class GeometryTrace {
+    /**
+     * Set to false to remove all tracing calls at compile time.
+     */
+    public static final boolean ENABLED = true;
+    /**
+     * True when the platform supports application trace sections.
+     */
+    private static final boolean SUPPORTED = Build.VERSION.SDK_INT >= Build.VERSION_CODES.JELLY_BEAN_MR2;
+    /**
+     * Number of size ranges, one for 0 and one for each bit of a positive int.
+     */
+    private static final int SIZE_RANGES = 32;
+
+    private GeometryTrace() {
+    }
+
+    /**
+     * Begins a section.
+     *
+     * @param section Traced phase.
+     * @param size    Size of the input processed in the phase.
+     */
+    @TargetApi(Build.VERSION_CODES.JELLY_BEAN_MR2)
+    public static void begin(Section section, int size) {
+        if (ENABLED && SUPPORTED)
+            Trace.beginSection(section.names[sizeRange(size)]);
+    }
+
+    /**
+     * Ends the most recently begun section on the current thread.
+     */
+    @TargetApi(Build.VERSION_CODES.JELLY_BEAN_MR2)
+    public static void end() {
+        if (ENABLED && SUPPORTED)
+            Trace.endSection();
+    }
+
+    /**
+     * Gets the index of the size range containing the size.
+     *
+     * @param size Non negative size.
+     * @return 0 for sizes below 1, otherwise k for sizes from 2^(k-1) to 2^k - 1.
+     */
+    private static int sizeRange(int size) {
+        if (size <= 0)
+            return 0;
+        return 32 - Integer.numberOfLeadingZeros(size);
+    }
+
+    /**
+     * Traced geometry phases with precomputed section names.
+     */
+    public enum Section {
+        DECOMPOSITION("Polygonisation.decomposeGrid", "lines"),
+        NODE_BUILDING("Polygonisation.linesToNodes", "fragments"),
+        FACE_TRACING("Polygonisation.nodesToPolygons", "nodes"),
+        TRIANGULATION("BatchTriangulation.triangulate", "vertices"),
+        BUFFER_BUILDING("MeshBuilder.addPolygon", "vertices");
+
+        /**
+         * Section name for each size range.
+         */
+        final String[] names = new String[SIZE_RANGES];
+
+        /**
+         * Creates a section.
+         *
+         * @param phase    Name of the phase.
+         * @param sizeUnit What the attached size counts.
+         */
+        Section(String phase, String sizeUnit) {
+            names[0] = phase + " " + sizeUnit + "=0";
+            for (int range = 1; range < SIZE_RANGES; range++) {
+                long from = 1L << (range - 1);
+                long to = (1L << range) - 1;
+                names[range] = phase + " " + sizeUnit + "=" + from + ".." + to;
+            }
+        }
+    }
+}
@@ -0,0 +1,20 @@
+package com.firtzberg.lines2polygons.profiling;
+
+import android.util.Log;
+
+/**
+ * Trace sink forwarding every event to the Android debug log.
+ */
+public class LogTraceSink implements TraceSink {
+    @Override
+    public void record(String tag, String event, Object arg0, Object arg1, Object arg2) {
+        StringBuilder message = new StringBuilder(event);
+        if (arg0 != null)
+            message.append(' ').append(arg0);
+        if (arg1 != null)
+            message.append(' ').append(arg1);
+        if (arg2 != null)
+            message.append(' ').append(arg2);
+        Log.d(tag, message.toString());
+    }
+}
@@ -0,0 +1,96 @@
+package com.firtzberg.lines2polygons.profiling;
+
+import java.io.IOException;
+
+/**
+ * Trace sink keeping the most recent events in memory for post mortem dumps.
+ * Recording allocates nothing, events are formatted only when dumped.
+ */
+public class RingBufferTraceSink implements TraceSink {
+    private final long[] timestamps;
+    private final String[] tags;
+    private final String[] events;
+    private final Object[] args0;
+    private final Object[] args1;
+    private final Object[] args2;
+    /**
+     * Total number of recorded events, including overwritten ones.
+     */
+    private long recorded;
+
+    /**
+     * Creates a sink keeping at most the given number of events.
+     *
+     * @param capacity Number of most recent events kept.
+     */
+    public RingBufferTraceSink(int capacity) {
+        if (capacity <= 0)
+            throw new IllegalArgumentException("Capacity must be positive.");
+        timestamps = new long[capacity];
+        tags = new String[capacity];
+        events = new String[capacity];
+        args0 = new Object[capacity];
+        args1 = new Object[capacity];
+        args2 = new Object[capacity];
+    }
+
+    @Override
+    public synchronized void record(String tag, String event, Object arg0, Object arg1, Object arg2) {
+        int slot = (int) (recorded % timestamps.length);
+        timestamps[slot] = System.nanoTime();
+        tags[slot] = tag;
+        events[slot] = event;
+        args0[slot] = arg0;
+        args1[slot] = arg1;
+        args2[slot] = arg2;
+        recorded++;
+    }
+
+    /**
+     * Gets the total number of recorded events.
+     *
+     * @return Number of recorded events including the ones no longer kept.
+     */
+    public synchronized long getRecordedCount() {
+        return recorded;
+    }
+
+    /**
+     * Writes kept events from oldest to newest, one per line.
+     *
+     * @param out Destination of the dump.
+     * @throws IOException If writing to out fails.
+     */
+    public synchronized void dump(Appendable out) throws IOException {
+        int capacity = timestamps.length;
+        long first = Math.max(0, recorded - capacity);
+        for (long index = first; index < recorded; index++) {
+            int slot = (int) (index % capacity);
+            out.append(String.valueOf(timestamps[slot])).append(' ')
+                    .append(tags[slot]).append(": ").append(events[slot]);
+            appendArgument(out, args0[slot]);
+            appendArgument(out, args1[slot]);
+            appendArgument(out, args2[slot]);
+            out.append('\n');
+        }
+    }
+
+    /**
+     * Removes all kept events.
+     */
+    public synchronized void clear() {
+        for (int i = 0; i < timestamps.length; i++) {
+            tags[i] = null;
+            events[i] = null;
+            args0[i] = null;
+            args1[i] = null;
+            args2[i] = null;
+        }
+        recorded = 0;
+    }
+
+    private static void appendArgument(Appendable out, Object argument) throws IOException {
+        if (argument != null)
+            out.append(' ').append(String.valueOf(argument));
+    }
+}
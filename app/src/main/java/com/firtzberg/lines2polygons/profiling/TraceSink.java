@@ -0,0 +1,18 @@
+package com.firtzberg.lines2polygons.profiling;
+
+/**
+ * Receiver of trace events.
+ * Arguments are passed unformatted, formatting is left to the sink.
+ */
+public interface TraceSink {
+    /**
+     * Records an event.
+     *
+     * @param tag   Component emitting the event.
+     * @param event Description of the event.
+     * @param arg0  First argument or null.
+     * @param arg1  Second argument or null.
+     * @param arg2  Third argument or null.
+     */
+    void record(String tag, String event, Object arg0, Object arg1, Object arg2);
+}
@@ -0,0 +1,57 @@
+package com.firtzberg.lines2polygons.profiling;
+
+/**
+ * Entry point for structured tracing of the geometry core.
+ * <p>Call sites must be guarded so that disabled tracing costs nothing:</p>
+ * <pre>
+ * if (Tracing.ENABLED &amp;&amp; Tracing.isActive())
+ *     Tracing.trace(TAG, "Added side", line, null, null);
+ * </pre>
+ * When {@link #ENABLED} is false the guarded code is removed by the compiler.
+ */
+public final class Tracing {
+    /**
+     * Set to true to compile tracing into the geometry core.
+     */
+    public static final boolean ENABLED = false;
+    /**
+     * Current sink or null when tracing is inactive.
+     */
+    private static volatile TraceSink sink;
+
+    private Tracing() {
+    }
+
+    /**
+     * Sets the sink receiving all trace events.
+     *
+     * @param sink Sink to receive events or null to deactivate tracing.
+     */
+    public static void setSink(TraceSink sink) {
+        Tracing.sink = sink;
+    }
+
+    /**
+     * Checks whether events are being recorded.
+     *
+     * @return True when a sink is set, false otherwise.
+     */
+    public static boolean isActive() {
+        return sink != null;
+    }
+
+    /**
+     * Passes an event to the current sink.
+     *
+     * @param tag   Component emitting the event.
+     * @param event Description of the event.
+     * @param arg0  First argument or null.
+     * @param arg1  Second argument or null.
+     * @param arg2  Third argument or null.
+     */
+    public static void trace(String tag, String event, Object arg0, Object arg1, Object arg2) {
+        TraceSink current = sink;
+        if (current != null)
+            current.record(tag, event, arg0, arg1, arg2);
+    }
+}
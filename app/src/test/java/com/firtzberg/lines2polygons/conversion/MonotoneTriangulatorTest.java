@@ -0,0 +1,187 @@
+package com.firtzberg.lines2polygons.conversion;
+
+import org.junit.Test;
+
+import java.util.Arrays;
+import java.util.Random;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Compares the triangles of {@link MonotoneTriangulator} with those of the ear clipping {@link Triangulator}
+ * on random simple polygons.
+ */
+public class MonotoneTriangulatorTest {
+    private final MonotoneTriangulator monotone = new MonotoneTriangulator();
+    private final Triangulator earClipping = new Triangulator();
+
+    @Test
+    public void starPolygons() {
+        Random random = new Random(1);
+        for (int k = 0; k < 3000; k++) {
+            int vertexCount = k % 100 == 0 ? 500 + random.nextInt(1100) : 3 + random.nextInt(100);
+            assertSameTriangulation("star " + k, star(random, vertexCount));
+        }
+    }
+
+    @Test
+    public void latticeStarPolygons() {
+        Random random = new Random(2);
+        for (int k = 0; k < 2000; k++)
+            assertSameTriangulation("lattice star " + k, latticeStar(random, 3 + random.nextInt(60)));
+    }
+
+    @Test
+    public void orthogonalPolygons() {
+        Random random = new Random(3);
+        for (int k = 0; k < 1000; k++) {
+            int columnCount = k % 50 == 0 ? 200 + random.nextInt(200) : 1 + random.nextInt(40);
+            float[] vertices = orthogonal(random, columnCount);
+            assertSameTriangulation("orthogonal " + k, vertices);
+            assertSameTriangulation("transposed orthogonal " + k, transpose(vertices));
+        }
+    }
+
+    @Test
+    public void offsetInput() {
+        float[] square = {0, 0, 0, 1, 1, 1, 1, 0};
+        float[] vertices = new float[4 + square.length];
+        System.arraycopy(square, 0, vertices, 4, square.length);
+        int[] triangles = new int[Triangulator.getIndexCount(4)];
+        assertEquals(2, monotone.computeTriangles(vertices, 4, square.length, triangles, 0));
+        for (int index : triangles)
+            assertTrue("index " + index, index >= 2 && index < 6);
+    }
+
+    /**
+     * Triangulates the polygon with both triangulators and checks that the results cover the polygon in the same way.
+     * The polygons are simple, so the monotone triangulator must not fall back to ear clipping.
+     */
+    private void assertSameTriangulation(String name, float[] vertices) {
+        int vertexCount = vertices.length / 2;
+        assertTrue(name + " split into monotone pieces", monotone.triangulate(vertices, 0, vertices.length));
+        int[] expected = new int[Triangulator.getIndexCount(vertexCount)];
+        int[] actual = new int[expected.length];
+        int expectedCount = earClipping.computeTriangles(vertices, 0, vertices.length, expected, 0);
+        int actualCount = monotone.computeTriangles(vertices, 0, vertices.length, actual, 0);
+        assertEquals(name + " triangle count", expectedCount, actualCount);
+        assertEquals(name + " triangle count", vertexCount - 2, actualCount);
+
+        double polygonArea = Math.abs(doubleArea(vertices));
+        double tolerance = 1e-6 * Math.max(1, polygonArea);
+        assertEquals(name + " reference area", polygonArea, coveredArea(vertices, expected, expectedCount), tolerance);
+        assertEquals(name + " area", polygonArea, coveredArea(vertices, actual, actualCount), tolerance);
+        assertEquals(name + " counterclockwise triangles", countCounterclockwise(vertices, expected, expectedCount),
+                countCounterclockwise(vertices, actual, actualCount));
+        assertEquals(name + " counterclockwise triangles", 0, countCounterclockwise(vertices, actual, actualCount));
+    }
+
+    private static double cross(float[] vertices, int a, int b, int c) {
+        return ((double) vertices[2 * b] - vertices[2 * a]) * ((double) vertices[2 * c + 1] - vertices[2 * a + 1])
+                - ((double) vertices[2 * c] - vertices[2 * a]) * ((double) vertices[2 * b + 1] - vertices[2 * a + 1]);
+    }
+
+    private static double doubleArea(float[] vertices) {
+        double sum = 0;
+        for (int i = 0, j = vertices.length / 2 - 1; i < vertices.length / 2; j = i++)
+            sum += (double) vertices[2 * j] * vertices[2 * i + 1] - (double) vertices[2 * i] * vertices[2 * j + 1];
+        return sum;
+    }
+
+    private static double coveredArea(float[] vertices, int[] triangles, int triangleCount) {
+        double sum = 0;
+        for (int i = 0; i < 3 * triangleCount; i += 3) {
+            for (int k = 0; k < 3; k++)
+                assertTrue("index " + triangles[i + k], triangles[i + k] >= 0 && triangles[i + k] < vertices.length / 2);
+            sum += Math.abs(cross(vertices, triangles[i], triangles[i + 1], triangles[i + 2]));
+        }
+        return sum;
+    }
+
+    private static int countCounterclockwise(float[] vertices, int[] triangles, int triangleCount) {
+        int count = 0;
+        for (int i = 0; i < 3 * triangleCount; i += 3) {
+            if (cross(vertices, triangles[i], triangles[i + 1], triangles[i + 2]) > 0)
+                count++;
+        }
+        return count;
+    }
+
+    /**
+     * Creates a polygon visible from the origin with vertices at random angles and distances.
+     */
+    private static float[] star(Random random, int vertexCount) {
+        double[] angles = new double[vertexCount];
+        for (int i = 0; i < vertexCount; i++)
+            angles[i] = 2 * Math.PI * (i + 0.1 + 0.8 * random.nextDouble()) / vertexCount;
+        Arrays.sort(angles);
+        float[] vertices = new float[2 * vertexCount];
+        for (int i = 0; i < vertexCount; i++) {
+            double radius = 1 + 10 * random.nextDouble();
+            vertices[2 * i] = (float) (radius * Math.cos(angles[i]));
+            vertices[2 * i + 1] = (float) (radius * Math.sin(angles[i]));
+        }
+        return vertices;
+    }
+
+    /**
+     * Creates a star polygon with integer coordinates, which often has collinear and equally high vertices.
+     */
+    private static float[] latticeStar(Random random, int vertexCount) {
+        float[] vertices = new float[2 * vertexCount];
+        for (int i = 0; i < vertexCount; i++) {
+            double angle = 2 * Math.PI * i / vertexCount;
+            int radius = 5 + random.nextInt(20);
+            vertices[2 * i] = Math.round(4 * radius * Math.cos(angle));
+            vertices[2 * i + 1] = Math.round(4 * radius * Math.sin(angle));
+        }
+        return vertices;
+    }
+
+    /**
+     * Creates a polygon of unit wide columns reaching up and down from the x axis by random integer heights.
+     * Every column corner is a vertex unless it would repeat the previous one,
+     * so runs of equal heights give collinear vertices.
+     */
+    private static float[] orthogonal(Random random, int columnCount) {
+        int[] tops = new int[columnCount];
+        int[] bottoms = new int[columnCount];
+        for (int i = 0; i < columnCount; i++) {
+            tops[i] = 1 + random.nextInt(4);
+            bottoms[i] = -1 - random.nextInt(4);
+        }
+        float[] vertices = new float[8 * columnCount];
+        int count = 0;
+        // Bottom from left to right, then top from right to left.
+        for (int i = 0; i < columnCount; i++) {
+            vertices[count++] = i;
+            vertices[count++] = bottoms[i];
+            if (i + 1 == columnCount || bottoms[i + 1] != bottoms[i]) {
+                vertices[count++] = i + 1;
+                vertices[count++] = bottoms[i];
+            }
+        }
+        for (int i = columnCount - 1; i >= 0; i--) {
+            vertices[count++] = i + 1;
+            vertices[count++] = tops[i];
+            if (i == 0 || tops[i - 1] != tops[i]) {
+                vertices[count++] = i;
+                vertices[count++] = tops[i];
+            }
+        }
+        return Arrays.copyOf(vertices, count);
+    }
+
+    /**
+     * Swaps x and y coordinates, which mirrors the polygon and reverses its orientation.
+     */
+    private static float[] transpose(float[] vertices) {
+        float[] transposed = new float[vertices.length];
+        for (int i = 0; i < vertices.length; i += 2) {
+            transposed[i] = vertices[i + 1];
+            transposed[i + 1] = vertices[i];
+        }
+        return transposed;
+    }
+}
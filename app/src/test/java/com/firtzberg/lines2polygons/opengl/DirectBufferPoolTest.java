@@ -0,0 +1,55 @@
+package com.firtzberg.lines2polygons.opengl;
+
+import com.firtzberg.lines2polygons.elements.Border;
+
+import org.junit.Test;
+
+import java.nio.ByteBuffer;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertSame;
+
+/**
+ * Checks reuse and bookkeeping of pooled buffers.
+ */
+public class DirectBufferPoolTest {
+
+    @Test
+    public void releasedBufferIsReused() {
+        DirectBufferPool pool = new DirectBufferPool(1024);
+        ByteBuffer buffer = pool.acquire(100);
+        assertEquals(128, buffer.capacity());
+        assertEquals(100, buffer.limit());
+        pool.release(buffer);
+        assertSame(buffer, pool.acquire(65));
+        assertEquals(128, pool.getOutstandingBytes());
+        assertEquals(1, pool.getReuseCount());
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void secondReleaseIsRejected() {
+        DirectBufferPool pool = new DirectBufferPool(1024);
+        ByteBuffer buffer = pool.acquire(10);
+        pool.release(buffer);
+        pool.release(buffer);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void foreignBufferIsRejected() {
+        new DirectBufferPool(1024).release(ByteBuffer.allocateDirect(64));
+    }
+
+    @Test
+    public void meshReleaseIsIdempotent() {
+        DirectBufferPool pool = new DirectBufferPool(1024);
+        MeshBuilder builder = new MeshBuilder();
+        builder.addPolygon(new Border(new float[]{0, 0, 1, 0, 0, 1}, 3), new int[]{0, 1, 2}, 0, 1,
+                0, 0, 0, 1, 1, 1);
+        OpenGLMesh mesh = new OpenGLMesh(builder, pool);
+        mesh.release();
+        long pooledBytes = pool.getPooledBytes();
+        mesh.release();
+        assertEquals(pooledBytes, pool.getPooledBytes());
+        assertEquals(0, pool.getOutstandingBytes());
+    }
+}
@@ -0,0 +1,165 @@
+package com.firtzberg.lines2polygons.opengl;
+
+import com.firtzberg.lines2polygons.conversion.MonotoneTriangulator;
+import com.firtzberg.lines2polygons.conversion.PolygonTriangulator;
+import com.firtzberg.lines2polygons.conversion.Triangulator;
+import com.firtzberg.lines2polygons.elements.Border;
+
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Checks batches, indices and winding of meshes built on a plain JVM.
+ */
+public class MeshBuilderTest {
+    private final PolygonTriangulator triangulator = new MonotoneTriangulator();
+
+    @Test
+    public void smallPolygonsStartNewBatchesWhole() {
+        MeshBuilder mesh = new MeshBuilder();
+        Border square = new Border(new float[]{0, 0, 1, 0, 1, 1, 0, 1}, 4);
+        int polygonCount = 20000;
+        for (int i = 0; i < polygonCount; i++)
+            add(mesh, square, i % 200, i / 200, i);
+        assertEquals(4 * polygonCount, mesh.getVertexCount());
+        assertTrue(mesh.getBatchCount() > 1);
+        for (int batch = 0; batch < mesh.getBatchCount(); batch++)
+            assertEquals("vertices of batch " + batch, 0, batchVertexCount(mesh, batch) % 4);
+        assertValidBatches(mesh);
+        assertEquals(6 * polygonCount, mesh.getTriangleIndexCount());
+        assertEquals(8 * polygonCount, mesh.getLineIndexCount());
+    }
+
+    @Test
+    public void polygonLargerThanBatchIsSplit() {
+        // Saw tooth with integer coordinates, so flipped and translated positions are exact.
+        int toothCount = 150000;
+        int pointCount = toothCount + 2;
+        float[] coordinates = new float[2 * pointCount];
+        for (int i = 0; i < toothCount; i++) {
+            coordinates[2 * i] = i;
+            coordinates[2 * i + 1] = 1 + i % 2;
+        }
+        coordinates[2 * toothCount] = toothCount - 1;
+        coordinates[2 * toothCount + 1] = 0;
+        Border border = new Border(coordinates, pointCount);
+        MeshBuilder mesh = new MeshBuilder();
+        add(mesh, new Border(new float[]{0, 0, 1, 0, 0, 1}, 3), 0, 0, 0);
+        add(mesh, border, 5, -5, 1);
+
+        assertTrue(mesh.getBatchCount() >= 3);
+        assertValidBatches(mesh);
+        assertEquals(3 * (1 + pointCount - 2), mesh.getTriangleIndexCount());
+        assertEquals(2 * (3 + pointCount), mesh.getLineIndexCount());
+        assertEquals(1 + Math.abs(doubleArea(coordinates)), coveredDoubleArea(mesh), 0);
+    }
+
+    @Test
+    public void positionsAreTranslatedAndFlipped() {
+        MeshBuilder mesh = new MeshBuilder();
+        add(mesh, new Border(new float[]{1, 2, 4, 2, 4, 6}, 3), 10, 20, -3);
+        assertEquals(3, mesh.getVertexCount());
+        int[] vertices = mesh.getVertices();
+        assertEquals(11, coordinate(vertices, 0, 0), 0);
+        assertEquals(18, coordinate(vertices, 0, 1), 0);
+        assertEquals(-3, coordinate(vertices, 0, 2), 0);
+        assertEquals(14, coordinate(vertices, 2, 0), 0);
+        assertEquals(14, coordinate(vertices, 2, 1), 0);
+        assertEquals(MeshBuilder.packColor(0.5f, 0.5f, 0.5f, 1), vertices[MeshBuilder.COLOR_OFFSET]);
+    }
+
+    /**
+     * Triangulates and adds the polygon with the given translation.
+     */
+    private void add(MeshBuilder mesh, Border border, float x, float y, float z) {
+        int[] triangles = new int[Triangulator.getIndexCount(border.getPointCount())];
+        int triangleCount = triangulator.computeTriangles(border.getCoordinates(), 0, border.getCoordinateCount(),
+                triangles, 0);
+        mesh.addPolygon(border, triangles, 0, triangleCount, x, y, z, 0.5f, 0.5f, 0.5f);
+    }
+
+    private static int batchVertexCount(MeshBuilder mesh, int batch) {
+        int end = batch + 1 < mesh.getBatchCount() ? mesh.getBatchVertexOffset(batch + 1) : mesh.getVertexCount();
+        return end - mesh.getBatchVertexOffset(batch);
+    }
+
+    /**
+     * Checks that every batch fits short indices, all its indices address its own vertices,
+     * and its triangles are clockwise after the y flip like the input triangles.
+     */
+    private static void assertValidBatches(MeshBuilder mesh) {
+        int[] vertices = mesh.getVertices();
+        int previousTriangleEnd = 0, previousLineEnd = 0;
+        for (int batch = 0; batch < mesh.getBatchCount(); batch++) {
+            int vertexCount = batchVertexCount(mesh, batch);
+            int vertexOffset = mesh.getBatchVertexOffset(batch);
+            assertTrue("vertices of batch " + batch, vertexCount > 0 && vertexCount <= MeshBuilder.MAX_BATCH_VERTEX_COUNT);
+
+            int triangleOffset = mesh.getBatchTriangleIndexOffset(batch);
+            int triangleCount = mesh.getBatchTriangleIndexCount(batch);
+            assertEquals(previousTriangleEnd, triangleOffset);
+            assertEquals(0, triangleCount % 3);
+            int maxIndex = -1;
+            for (int i = triangleOffset; i < triangleOffset + triangleCount; i += 3) {
+                int a = vertexOffset + index(mesh.getTriangleIndices(), i);
+                int b = vertexOffset + index(mesh.getTriangleIndices(), i + 1);
+                int c = vertexOffset + index(mesh.getTriangleIndices(), i + 2);
+                maxIndex = Math.max(maxIndex, Math.max(a, Math.max(b, c)) - vertexOffset);
+                assertTrue("winding of triangle " + i, cross(vertices, a, b, c) <= 0);
+            }
+            previousTriangleEnd = triangleOffset + triangleCount;
+
+            int lineOffset = mesh.getBatchLineIndexOffset(batch);
+            int lineCount = mesh.getBatchLineIndexCount(batch);
+            assertEquals(previousLineEnd, lineOffset);
+            assertEquals(0, lineCount % 2);
+            for (int i = lineOffset; i < lineOffset + lineCount; i++)
+                maxIndex = Math.max(maxIndex, index(mesh.getLineIndices(), i));
+            previousLineEnd = lineOffset + lineCount;
+            assertTrue("max index " + maxIndex + " of batch " + batch + " with " + vertexCount + " vertices",
+                    maxIndex < vertexCount);
+        }
+        assertEquals(mesh.getTriangleIndexCount(), previousTriangleEnd);
+        assertEquals(mesh.getLineIndexCount(), previousLineEnd);
+    }
+
+    /**
+     * Reads an index as an unsigned short.
+     */
+    private static int index(short[] indices, int i) {
+        return indices[i] & 0xFFFF;
+    }
+
+    private static float coordinate(int[] vertices, int vertex, int axis) {
+        return Float.intBitsToFloat(vertices[vertex * MeshBuilder.INTS_PER_VERTEX + axis]);
+    }
+
+    private static double cross(int[] vertices, int a, int b, int c) {
+        double ax = coordinate(vertices, a, 0), ay = coordinate(vertices, a, 1);
+        return (coordinate(vertices, b, 0) - ax) * (coordinate(vertices, c, 1) - ay)
+                - (coordinate(vertices, c, 0) - ax) * (coordinate(vertices, b, 1) - ay);
+    }
+
+    private static double coveredDoubleArea(MeshBuilder mesh) {
+        double sum = 0;
+        for (int batch = 0; batch < mesh.getBatchCount(); batch++) {
+            int vertexOffset = mesh.getBatchVertexOffset(batch);
+            int offset = mesh.getBatchTriangleIndexOffset(batch);
+            for (int i = offset; i < offset + mesh.getBatchTriangleIndexCount(batch); i += 3) {
+                sum += Math.abs(cross(mesh.getVertices(), vertexOffset + index(mesh.getTriangleIndices(), i),
+                        vertexOffset + index(mesh.getTriangleIndices(), i + 1),
+                        vertexOffset + index(mesh.getTriangleIndices(), i + 2)));
+            }
+        }
+        return sum;
+    }
+
+    private static double doubleArea(float[] coordinates) {
+        double sum = 0;
+        for (int i = 0, j = coordinates.length / 2 - 1; i < coordinates.length / 2; j = i++)
+            sum += (double) coordinates[2 * j] * coordinates[2 * i + 1] - (double) coordinates[2 * i] * coordinates[2 * j + 1];
+        return sum;
+    }
+}
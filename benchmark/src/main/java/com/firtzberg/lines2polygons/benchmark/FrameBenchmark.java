@@ -0,0 +1,111 @@
+package com.firtzberg.lines2polygons.benchmark;
+
+import com.firtzberg.lines2polygons.conversion.Triangulator;
+import com.firtzberg.lines2polygons.elements.Border;
+import com.firtzberg.lines2polygons.opengl.DirectBufferPool;
+import com.firtzberg.lines2polygons.opengl.MeshBuilder;
+import com.firtzberg.lines2polygons.opengl.MeshScene;
+import com.firtzberg.lines2polygons.opengl.OpenGLMesh;
+import com.firtzberg.lines2polygons.opengl.RecordingGLCommands;
+
+import org.openjdk.jmh.annotations.AuxCounters;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures the CPU cost of issuing a frame of the grid renderer without a GPU.
+ * Commands are recorded by {@link RecordingGLCommands} and their counts are reported as rates next to the
+ * frame rate, so regressions in draw calls, redundant state changes or submitted bytes show up in the results.
+ * Dividing a counter by the frame rate gives its value per frame.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class FrameBenchmark {
+
+    @Param({"CONVEX", "COMB"})
+    public PolygonGenerator.Shape shape;
+
+    @Param({"100", "2000"})
+    public int polygonCount;
+
+    @Param({"32"})
+    public int vertexCount;
+
+    /**
+     * Handles given to the scene, as if queried once from the program.
+     */
+    private static final int POSITION_HANDLE = 0, COLOR_HANDLE = 1;
+    /**
+     * Drawn scene.
+     */
+    private MeshScene scene;
+    /**
+     * Recorder kept across frames, like the state of a GL context.
+     */
+    private RecordingGLCommands gl;
+
+    @Setup
+    public void setUp() {
+        float[] vertices = PolygonGenerator.generate(shape, vertexCount);
+        Border border = new Border(vertices, vertices.length / 2);
+        int[] triangles = new int[Triangulator.getIndexCount(border.getPointCount())];
+        int triangleCount = new Triangulator().computeTriangles(vertices, 0, vertices.length, triangles, 0);
+
+        MeshBuilder mesh = new MeshBuilder();
+        for (int i = 0; i < polygonCount; i++)
+            mesh.addPolygon(border, triangles, 0, triangleCount, i % 10, i / 10, -i, 0.5f, 0.5f, 0.5f);
+        scene = new MeshScene();
+        scene.add(new OpenGLMesh(mesh, new DirectBufferPool(0)));
+        gl = new RecordingGLCommands();
+    }
+
+    /**
+     * Commands recorded in all frames of an iteration. JMH normalises them by the iteration time like the frames.
+     */
+    @State(Scope.Thread)
+    @AuxCounters(AuxCounters.Type.OPERATIONS)
+    public static class FrameCounters {
+        public long calls;
+        public long drawCalls;
+        public long stateChanges;
+        public long redundantStateChanges;
+        public long submittedBytes;
+
+        @Setup(Level.Iteration)
+        public void reset() {
+            calls = 0;
+            drawCalls = 0;
+            stateChanges = 0;
+            redundantStateChanges = 0;
+            submittedBytes = 0;
+        }
+    }
+
+    @Benchmark
+    public long drawFrame(FrameCounters counters) {
+        gl.reset();
+        scene.draw(gl, POSITION_HANDLE, COLOR_HANDLE);
+        counters.calls += gl.getCallCount();
+        counters.drawCalls += gl.getDrawCallCount();
+        counters.stateChanges += gl.getStateChangeCount();
+        counters.redundantStateChanges += gl.getRedundantStateChangeCount();
+        counters.submittedBytes += gl.getSubmittedBytes();
+        return gl.getSubmittedBytes();
+    }
+}
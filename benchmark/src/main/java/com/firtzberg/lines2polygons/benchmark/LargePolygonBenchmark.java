@@ -0,0 +1,71 @@
+package com.firtzberg.lines2polygons.benchmark;
+
+import com.firtzberg.lines2polygons.conversion.MonotoneTriangulator;
+import com.firtzberg.lines2polygons.conversion.Triangulator;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures triangulation of polygons with more vertices than short indices can address, written to int output.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class LargePolygonBenchmark {
+
+    @Param({"CONVEX", "SPIRAL", "COMB", "NEARLY_COLLINEAR"})
+    public PolygonGenerator.Shape shape;
+
+    @Param({"50000"})
+    public int vertexCount;
+
+    /**
+     * Triangulated polygon.
+     */
+    private float[] vertices;
+    /**
+     * Triangulator reused across invocations like in a steady state renderer.
+     */
+    private Triangulator triangulator;
+    /**
+     * Reused monotone partition triangulator.
+     */
+    private MonotoneTriangulator monotoneTriangulator;
+    /**
+     * Reused output of both benchmarks.
+     */
+    private int[] triangles;
+
+    @Setup
+    public void setUp() {
+        vertices = PolygonGenerator.generate(shape, vertexCount);
+        triangulator = new Triangulator();
+        monotoneTriangulator = new MonotoneTriangulator();
+        triangles = new int[Triangulator.getIndexCount(vertices.length / 2)];
+    }
+
+    @Benchmark
+    public int reusedTriangulator() {
+        return triangulator.computeTriangles(vertices, 0, vertices.length, triangles, 0);
+    }
+
+    @Benchmark
+    public int reusedMonotoneTriangulator() {
+        return monotoneTriangulator.computeTriangles(vertices, 0, vertices.length, triangles, 0);
+    }
+}
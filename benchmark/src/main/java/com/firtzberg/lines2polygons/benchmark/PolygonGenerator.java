@@ -0,0 +1,140 @@
+package com.firtzberg.lines2polygons.benchmark;
+
+/**
+ * Generates simple polygons of configurable size used as benchmark input.
+ * All polygons are returned as x, y pairs in counterclockwise order.
+ */
+public final class PolygonGenerator {
+
+    private PolygonGenerator() {
+    }
+
+    /**
+     * Generates a polygon of the given shape.
+     *
+     * @param shape       Shape of the polygon.
+     * @param vertexCount Requested number of vertices. Shapes with structural constraints round it down.
+     * @return Pairs describing vertices of the polygon.
+     */
+    public static float[] generate(Shape shape, int vertexCount) {
+        switch (shape) {
+            case CONVEX:
+                return convex(vertexCount);
+            case SPIRAL:
+                return spiral(vertexCount);
+            case COMB:
+                return comb(vertexCount);
+            case NEARLY_COLLINEAR:
+                return nearlyCollinear(vertexCount);
+            default:
+                throw new IllegalArgumentException("Unknown shape " + shape);
+        }
+    }
+
+    /**
+     * Regular polygon with all vertices on a circle.
+     *
+     * @param vertexCount Number of vertices.
+     * @return Pairs describing vertices of the polygon.
+     */
+    static float[] convex(int vertexCount) {
+        float[] vertices = new float[vertexCount * 2];
+        double radius = vertexCount;
+        for (int i = 0; i < vertexCount; i++) {
+            double angle = 2 * Math.PI * i / vertexCount;
+            vertices[2 * i] = (float) (radius * Math.cos(angle));
+            vertices[2 * i + 1] = (float) (radius * Math.sin(angle));
+        }
+        return vertices;
+    }
+
+    /**
+     * Band winding around the origin. Every vertex on the inner side is reflex.
+     *
+     * @param vertexCount Number of vertices, rounded down to an even number.
+     * @return Pairs describing vertices of the polygon.
+     */
+    static float[] spiral(int vertexCount) {
+        int armCount = vertexCount / 2;
+        float[] vertices = new float[armCount * 4];
+        // Roughly 32 vertices per turn on each arm, at least two turns.
+        double step = 2 * Math.PI / Math.min(32, Math.max(4, armCount / 2));
+        double spacing = 4;
+        int i = 0;
+        // Outer arm walking outwards.
+        for (int a = 0; a < armCount; a++) {
+            double angle = a * step;
+            double radius = 2 + spacing * angle / (2 * Math.PI);
+            vertices[i++] = (float) (radius * Math.cos(angle));
+            vertices[i++] = (float) (radius * Math.sin(angle));
+        }
+        // Inner arm walking back inwards.
+        for (int a = armCount - 1; a >= 0; a--) {
+            double angle = a * step;
+            double radius = 2 + spacing * angle / (2 * Math.PI) - spacing / 2;
+            vertices[i++] = (float) (radius * Math.cos(angle));
+            vertices[i++] = (float) (radius * Math.sin(angle));
+        }
+        return vertices;
+    }
+
+    /**
+     * Comb with rectangular teeth, the shape typical for lattice grids.
+     *
+     * @param vertexCount Number of vertices, rounded down to a multiple of four.
+     * @return Pairs describing vertices of the polygon.
+     */
+    static float[] comb(int vertexCount) {
+        int teeth = Math.max(1, vertexCount / 4);
+        float[] vertices = new float[teeth * 8];
+        float right = 2 * teeth - 1;
+        int i = 0;
+        vertices[i++] = 0;
+        vertices[i++] = 0;
+        vertices[i++] = right;
+        vertices[i++] = 0;
+        // Walk back along the teeth from right to left.
+        for (int tooth = teeth - 1; tooth >= 0; tooth--) {
+            vertices[i++] = 2 * tooth + 1;
+            vertices[i++] = 10;
+            vertices[i++] = 2 * tooth;
+            vertices[i++] = 10;
+            if (tooth > 0) {
+                vertices[i++] = 2 * tooth;
+                vertices[i++] = 1;
+                vertices[i++] = 2 * tooth - 1;
+                vertices[i++] = 1;
+            }
+        }
+        return vertices;
+    }
+
+    /**
+     * Strip whose bottom edge zigzags by a tiny amount, making most ear candidates almost degenerate.
+     *
+     * @param vertexCount Number of vertices, at least four.
+     * @return Pairs describing vertices of the polygon.
+     */
+    static float[] nearlyCollinear(int vertexCount) {
+        vertexCount = Math.max(4, vertexCount);
+        int bottomCount = vertexCount - 2;
+        float[] vertices = new float[vertexCount * 2];
+        int i = 0;
+        for (int b = 0; b < bottomCount; b++) {
+            vertices[i++] = b;
+            vertices[i++] = b % 2 == 0 ? 0 : 0.001f;
+        }
+        vertices[i++] = bottomCount - 1;
+        vertices[i++] = 1;
+        vertices[i++] = 0;
+        vertices[i] = 1;
+        return vertices;
+    }
+
+    /**
+     * Generated polygon shapes.
+     */
+    public enum Shape {
+        CONVEX, SPIRAL, COMB, NEARLY_COLLINEAR
+    }
+}